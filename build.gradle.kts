@@ -21,14 +21,42 @@ repositories {
     mavenCentral()
 }
 
+// JMH microbenchmarks of the hot paths live in src/jmh and see the main classes and their runtime dependencies
+val jmhSources = sourceSets.create("jmh") {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+configurations["jmhRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
+// The load-test harness lives in src/loadtest and starts the whole application in its own JVM
+val loadtestSources = sourceSets.create("loadtest") {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+configurations["loadtestImplementation"].extendsFrom(configurations.implementation.get())
+configurations["loadtestRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
     // Spring Boot
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
+
+    // Caffeine - in-process caches
+    implementation("com.github.ben-manes.caffeine:caffeine")
+
+    // Hibernate second-level cache, backed by Caffeine through JCache
+    implementation("org.hibernate.orm:hibernate-jcache")
+    implementation("com.github.ben-manes.caffeine:jcache")
 
     // H2 Database
     runtimeOnly("com.h2database:h2")
 
+    // Resilience4j - circuit breaker for external APIs
+    implementation("io.github.resilience4j:resilience4j-circuitbreaker:2.2.0")
+
     // Vavr
     implementation("io.vavr:vavr:0.10.4")
 
@@ -38,9 +66,66 @@ dependencies {
 
     // AssertJ - Best assertion library
     testImplementation("org.assertj:assertj-core:3.25.3")
+
+    // JMH - microbenchmarks
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+
+    // HdrHistogram - latency distributions of the load tests
+    "loadtestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
 }
 
 
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// Tests tagged "benchmark" measure throughput; they are slow, so they only run on demand
+val benchmark by tasks.registering(Test::class) {
+    description = "Runs the benchmarks tagged 'benchmark'."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+    maxHeapSize = "2g"
+    outputs.upToDateWhen { false }
+    shouldRunAfter(tasks.test)
+}
+
+// Runs the JMH benchmarks and writes their scores to build/reports/jmh/results.json.
+// A subset is selected with a regular expression: gradle jmh -Pjmh.includes=CatalogLookup
+val jmh by tasks.registering(JavaExec::class) {
+    description = "Runs the JMH benchmarks in src/jmh."
+    group = "verification"
+    val results = layout.buildDirectory.file("reports/jmh/results.json")
+    classpath = jmhSources.runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+    findProperty("jmh.includes")?.let { args(it.toString()) }
+    args("-rf", "json", "-rff", results.get().asFile.absolutePath)
+    outputs.file(results)
+    outputs.upToDateWhen { false }
+    doFirst {
+        results.get().asFile.parentFile.mkdirs()
+    }
+}
+
+// Replays a traffic mix against the application with ImpactCO2 replaced by a local stand-in and
+// writes HdrHistogram reports per endpoint to build/reports/loadtest/<scenario>.
+// Pick a bundled scenario or a JSON file with: gradle loadTest -Pscenario=degraded-impactco2
+val loadTest by tasks.registering(JavaExec::class) {
+    description = "Runs a load-test scenario against the application."
+    group = "verification"
+    classpath = loadtestSources.runtimeClasspath
+    mainClass = "com.omniproduct.loadtest.LoadTest"
+    args(findProperty("scenario")?.toString() ?: "storefront",
+        layout.buildDirectory.dir("reports/loadtest").get().asFile.absolutePath)
+    maxHeapSize = "2g"
+    outputs.upToDateWhen { false }
 }
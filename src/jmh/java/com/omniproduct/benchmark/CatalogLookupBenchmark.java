@@ -0,0 +1,115 @@
+package com.omniproduct.benchmark;
+
+import com.omniproduct.OmniProductApplication;
+import com.omniproduct.model.Product;
+import com.omniproduct.model.Supplier;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.repository.SupplierRepository;
+import com.omniproduct.service.ProductService;
+import com.omniproduct.service.SupplierService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Primary-key and slug lookups on H2, and the suppliers of a product, at several catalog sizes.
+// The second-level cache is off, so every lookup reaches the database.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CatalogLookupBenchmark {
+
+    private static final int PRODUCTS_PER_SUPPLIER = 100;
+    private static final int SEED_BATCH_SIZE = ProductService.MAX_BATCH_SIZE;
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private SupplierService supplierService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(OmniProductApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn",
+                "--spring.datasource.url=jdbc:h2:mem:jmh-" + catalogSize,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--omniproduct.footprint.enabled=false",
+                "--omniproduct.carbon.provider=offline");
+        productRepository = context.getBean(ProductRepository.class);
+        supplierService = context.getBean(SupplierService.class);
+        seed(context.getBean(SupplierRepository.class), context.getBean(ProductService.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Product> findById() {
+        return productRepository.findById(id(randomProduct()));
+    }
+
+    @Benchmark
+    public Optional<Product> findBySlug() {
+        return productRepository.findBySlug(slug(randomProduct()));
+    }
+
+    @Benchmark
+    public List<Supplier> getSuppliersByProduct() {
+        return supplierService.getSuppliersByProduct(id(randomProduct()));
+    }
+
+    private int randomProduct() {
+        return ThreadLocalRandom.current().nextInt(catalogSize);
+    }
+
+    private void seed(SupplierRepository supplierRepository, ProductService productService) {
+        List<Supplier> suppliers = supplierRepository.saveAll(
+            IntStream.range(0, Math.ceilDiv(catalogSize, PRODUCTS_PER_SUPPLIER))
+                .mapToObj(i -> new Supplier("supplier-" + i, "Supplier " + i, null, null, "France", "Bretagne"))
+                .toList());
+        for (int from = 0; from < catalogSize; from += SEED_BATCH_SIZE) {
+            productService.saveAll(IntStream.range(from, Math.min(catalogSize, from + SEED_BATCH_SIZE))
+                .mapToObj(i -> product(i, suppliers.get(i / PRODUCTS_PER_SUPPLIER)))
+                .toList());
+        }
+    }
+
+    private static Product product(int i, Supplier supplier) {
+        Product product = new Product(
+            id(i), "Product " + i, slug(i),
+            new Product.Price(10.0 + i % 100, 2.0, 0.2),
+            List.of("SUMMER10", "VIP5"),
+            Map.of("main", "image-" + i, "thumb", "thumb-" + i),
+            Map.of("Europe", new Product.Supplier("Supplier " + i, "SIREN" + i, "TVA" + i)),
+            1.5, "10x10x10", 1, 10, new Product.Warehouse("Lyon"));
+        product.setSupplier(supplier);
+        return product;
+    }
+
+    private static String id(int i) {
+        return "product-" + i;
+    }
+
+    private static String slug(int i) {
+        return "product-slug-" + i;
+    }
+}
@@ -0,0 +1,71 @@
+package com.omniproduct.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.infrastructure.adapter.ImpactCo2ApiClient;
+import com.omniproduct.infrastructure.adapter.ImpactCo2Request;
+import com.omniproduct.infrastructure.adapter.ImpactCo2Response;
+import com.omniproduct.infrastructure.adapter.ImpactCo2TransportAdapter;
+import com.omniproduct.infrastructure.resilience.ResiliencePipeline;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// What the ImpactCO2 adapter costs besides the network: mapping a domain request to the API
+// request and the response back, and the JSON of both on the wire
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImpactCo2MappingBenchmark {
+
+    private ImpactCo2TransportAdapter adapter;
+    private ObjectMapper objectMapper;
+    private TransportRequest request;
+    private ImpactCo2Request apiRequest;
+    private byte[] responseJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        request = new TransportRequest("road", 1000.0, 10.0);
+        apiRequest = new ImpactCo2Request("road", 1000.0, 10.0);
+        ImpactCo2Response response = new ImpactCo2Response(0.96, 0.77, "road", 1000.0, 10.0);
+        responseJson = objectMapper.writeValueAsBytes(response);
+
+        // Answers at once, so only the adapter's own work is measured
+        ImpactCo2ApiClient apiClient = new ImpactCo2ApiClient(WebClient.create()) {
+            @Override
+            public CompletableFuture<ImpactCo2Response> calculateEmissionsAsync(ImpactCo2Request request,
+                                                                                Duration timeout) {
+                return CompletableFuture.completedFuture(response);
+            }
+        };
+        adapter = new ImpactCo2TransportAdapter(apiClient,
+            ResiliencePipeline.passThrough("impactco2", Duration.ofSeconds(10)), 16);
+    }
+
+    @Benchmark
+    public TransportCarbonMetrics calculateEmissions() {
+        return adapter.calculateEmissions(request);
+    }
+
+    @Benchmark
+    public byte[] writeRequest() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(apiRequest);
+    }
+
+    @Benchmark
+    public ImpactCo2Response readResponse() throws IOException {
+        return objectMapper.readValue(responseJson, ImpactCo2Response.class);
+    }
+}
@@ -0,0 +1,72 @@
+package com.omniproduct.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Product JSON as written and read by the controllers, for one product and for a page of them
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private ObjectMapper objectMapper;
+    private Product product;
+    private List<Product> page;
+    private byte[] productJson;
+    private byte[] pageJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        page = IntStream.range(0, PAGE_SIZE).mapToObj(ProductJsonBenchmark::product).toList();
+        product = page.getFirst();
+        productJson = objectMapper.writeValueAsBytes(product);
+        pageJson = objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public Product deserializeProduct() throws IOException {
+        return objectMapper.readValue(productJson, Product.class);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<Product> deserializePage() throws IOException {
+        return objectMapper.readValue(pageJson, new TypeReference<>() {});
+    }
+
+    private static Product product(int i) {
+        return new Product(
+            "product-" + i, "Product " + i, "product-" + i,
+            new Product.Price(10.0 + i, 2.0, 0.2),
+            List.of("SUMMER10", "VIP5", "3+:15%"),
+            Map.of("main", "https://cdn.example.com/" + i + ".jpg", "thumb", "https://cdn.example.com/" + i + "-t.jpg"),
+            Map.of("Europe", new Product.Supplier("Supplier " + i, "SIREN" + i, "TVA" + i),
+                "Asia", new Product.Supplier("Supplier Asia " + i, "SIREN-A" + i, "TVA-A" + i)),
+            1.5, "10x10x10", 1, 10, new Product.Warehouse("Lyon"));
+    }
+}
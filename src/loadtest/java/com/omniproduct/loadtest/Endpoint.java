@@ -0,0 +1,97 @@
+package com.omniproduct.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+// The requests of a traffic mix, against the catalog seeded by LoadTest
+enum Endpoint {
+
+    // A page of the catalog from a random position
+    BROWSE("browse") {
+        @Override
+        HttpRequest request(URI base, Scenario scenario, Random random) {
+            return get(base, "/api/products/page?size=50&after=" + LoadCatalog.id(random.nextInt(scenario.catalogSize())));
+        }
+    },
+    // Storefront URL resolution, some of it for slugs that do not exist
+    SLUG("slug") {
+        @Override
+        HttpRequest request(URI base, Scenario scenario, Random random) {
+            int product = random.nextInt(scenario.catalogSize());
+            String slug = random.nextDouble() < scenario.slugMissRatio()
+                ? "missing-" + product
+                : LoadCatalog.slug(product);
+            return get(base, "/api/products/slug/" + slug);
+        }
+
+        @Override
+        boolean succeeded(int status) {
+            return status == 200 || status == 404;
+        }
+    },
+    // A price change through a merge patch
+    UPDATE("update") {
+        @Override
+        HttpRequest request(URI base, Scenario scenario, Random random) {
+            String body = String.format(Locale.ROOT, "{\"price\":{\"base\":%.2f}}", 5 + random.nextDouble() * 95);
+            return HttpRequest.newBuilder(base.resolve("/api/products/" + LoadCatalog.id(random.nextInt(scenario.catalogSize()))))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/merge-patch+json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        }
+    },
+    // A shipment line priced through ImpactCO2
+    CARBON("carbon") {
+        @Override
+        HttpRequest request(URI base, Scenario scenario, Random random) {
+            String body = String.format(Locale.ROOT,
+                "{\"transportMode\":\"%s\",\"distanceKm\":%.1f,\"weightKg\":%.1f}",
+                TRANSPORT_MODES[random.nextInt(TRANSPORT_MODES.length)],
+                50 + random.nextDouble() * 2000, 0.5 + random.nextDouble() * 50);
+            return HttpRequest.newBuilder(base.resolve("/api/transport/emissions"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        }
+    };
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] TRANSPORT_MODES = {"road", "rail", "sea", "air"};
+
+    private final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    abstract HttpRequest request(URI base, Scenario scenario, Random random);
+
+    boolean succeeded(int status) {
+        return status == 200;
+    }
+
+    static Endpoint fromKey(String key) {
+        return Arrays.stream(values())
+            .filter(endpoint -> endpoint.key.equals(key))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint in mix: " + key
+                + "; expected one of " + Arrays.stream(values()).map(Endpoint::key).toList()));
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+            .timeout(TIMEOUT)
+            .GET()
+            .build();
+    }
+}
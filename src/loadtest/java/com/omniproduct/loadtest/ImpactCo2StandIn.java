@@ -0,0 +1,78 @@
+package com.omniproduct.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.infrastructure.adapter.ImpactCo2Request;
+import com.omniproduct.infrastructure.adapter.ImpactCo2Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local replacement for https://impactco2.fr/api/v1: answers the transport endpoint after a
+// delay drawn from the scenario's distribution, and fails the given share of calls with a 503
+final class ImpactCo2StandIn implements AutoCloseable {
+
+    private static final double KG_CO2E_PER_TONNE_KM = 0.096;
+    private static final int BACKLOG = 1024;
+
+    private final Scenario.ImpactCo2 settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    ImpactCo2StandIn(Scenario.ImpactCo2 settings) throws IOException {
+        this.settings = settings;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), BACKLOG);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/v1/transport/emissions", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/api/v1";
+    }
+
+    long calls() {
+        return calls.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (exchange) {
+            ImpactCo2Request request = objectMapper.readValue(exchange.getRequestBody(), ImpactCo2Request.class);
+            Thread.sleep(settings.latency().sample(random));
+            if (random.nextDouble() < settings.errorRate()) {
+                failures.increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            double co2 = request.distanceKm() * request.weightKg() / 1000 * KG_CO2E_PER_TONNE_KM;
+            byte[] body = objectMapper.writeValueAsString(new ImpactCo2Response(
+                co2, co2 * 0.8, request.transportMode(), request.distanceKm(), request.weightKg()))
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The application gave up on this call
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.omniproduct.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import java.time.Duration;
+import java.util.Random;
+
+// Response delay of the ImpactCO2 stand-in, given in a scenario as {"type": "lognormal", ...}
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+    @JsonSubTypes.Type(value = LatencyDistribution.Fixed.class, name = "fixed"),
+    @JsonSubTypes.Type(value = LatencyDistribution.Uniform.class, name = "uniform"),
+    @JsonSubTypes.Type(value = LatencyDistribution.LogNormal.class, name = "lognormal")
+})
+public sealed interface LatencyDistribution {
+
+    Duration sample(Random random);
+
+    record Fixed(long millis) implements LatencyDistribution {
+        @Override
+        public Duration sample(Random random) {
+            return Duration.ofMillis(millis);
+        }
+    }
+
+    record Uniform(long minMillis, long maxMillis) implements LatencyDistribution {
+        public Uniform {
+            if (minMillis < 0 || maxMillis < minMillis) {
+                throw new IllegalArgumentException("Uniform latency needs 0 <= minMillis <= maxMillis");
+            }
+        }
+
+        @Override
+        public Duration sample(Random random) {
+            return Duration.ofMillis(minMillis + (long) (random.nextDouble() * (maxMillis - minMillis)));
+        }
+    }
+
+    // Long-tailed, as remote APIs usually are; set by its median and its 99th percentile
+    record LogNormal(double medianMillis, double p99Millis) implements LatencyDistribution {
+        private static final double Z_99 = 2.3263478740408408;
+
+        public LogNormal {
+            if (medianMillis <= 0 || p99Millis < medianMillis) {
+                throw new IllegalArgumentException("Log-normal latency needs 0 < medianMillis <= p99Millis");
+            }
+        }
+
+        @Override
+        public Duration sample(Random random) {
+            double sigma = Math.log(p99Millis / medianMillis) / Z_99;
+            double millis = medianMillis * Math.exp(sigma * random.nextGaussian());
+            return Duration.ofNanos((long) (millis * 1_000_000));
+        }
+    }
+}
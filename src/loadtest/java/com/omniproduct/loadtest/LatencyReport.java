@@ -0,0 +1,105 @@
+package com.omniproduct.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies per endpoint in microseconds, measured from the time each request was scheduled to
+// be sent, so a saturated server shows in the numbers instead of slowing the load down.
+// Written as one HdrHistogram percentile distribution (.hgrm) per endpoint plus a summary.csv.
+final class LatencyReport {
+
+    // A status for requests that got no response: connection failures and timeouts
+    static final int NO_RESPONSE = 0;
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    LatencyReport() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    void record(Endpoint endpoint, long latencyNanos, int status) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        endpointStats.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        endpointStats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (!endpoint.succeeded(status)) {
+            endpointStats.failures.increment();
+        }
+    }
+
+    void dropped(Endpoint endpoint) {
+        stats.get(endpoint).dropped.increment();
+    }
+
+    void print(PrintStream out, double seconds) {
+        out.printf("%-8s %9s %9s %8s %8s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "req/s", "failed", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        stats.forEach((endpoint, endpointStats) -> {
+            Histogram latencies = endpointStats.latencies;
+            if (latencies.getTotalCount() == 0 && endpointStats.dropped.sum() == 0) {
+                return;
+            }
+            out.printf("%-8s %,9d %9.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint.key(), latencies.getTotalCount(), latencies.getTotalCount() / seconds,
+                endpointStats.failures.sum(), endpointStats.dropped.sum(),
+                millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                latencies.getMaxValue() / MICROS_PER_MILLI);
+            out.printf("         statuses %s%n", statuses(endpointStats));
+        });
+    }
+
+    void write(Path directory, double seconds) throws IOException {
+        Files.createDirectories(directory);
+        StringBuilder summary = new StringBuilder(
+            "endpoint,requests,requests_per_second,failed,dropped,p50_ms,p90_ms,p99_ms,p99_9_ms,max_ms\n");
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            Histogram latencies = entry.getValue().latencies;
+            if (latencies.getTotalCount() == 0) {
+                continue;
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey().key() + ".hgrm")))) {
+                latencies.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+            summary.append(String.format(Locale.ROOT, "%s,%d,%.1f,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                entry.getKey().key(), latencies.getTotalCount(), latencies.getTotalCount() / seconds,
+                entry.getValue().failures.sum(), entry.getValue().dropped.sum(),
+                millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                latencies.getMaxValue() / MICROS_PER_MILLI));
+        }
+        Files.writeString(directory.resolve("summary.csv"), summary);
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static Map<Integer, Long> statuses(EndpointStats endpointStats) {
+        Map<Integer, Long> statuses = new TreeMap<>();
+        endpointStats.statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+        return statuses;
+    }
+
+    private static final class EndpointStats {
+        // Resizes itself, so no latency is out of range
+        final Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder failures = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+    }
+}
@@ -0,0 +1,36 @@
+package com.omniproduct.loadtest;
+
+import com.omniproduct.model.Product;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Products seeded before a run; the endpoints pick among them by index
+final class LoadCatalog {
+
+    private static final String[] WAREHOUSES = {"Lyon", "Paris", "Marseille", "Lille"};
+
+    private LoadCatalog() {
+    }
+
+    static String id(int index) {
+        return "load-" + index;
+    }
+
+    static String slug(int index) {
+        return "load-product-" + index;
+    }
+
+    static List<Product> products(int from, int to) {
+        return IntStream.range(from, to)
+            .mapToObj(i -> new Product(
+                id(i), "Product " + i, slug(i),
+                new Product.Price(10.0 + i % 90, 2.0, 0.2),
+                List.of("SUMMER10", "3+:15%"),
+                Map.of("main", "https://cdn.example.com/" + i + ".jpg"),
+                Map.of("Europe", new Product.Supplier("Supplier " + i % 100, "SIREN" + i % 100, "TVA" + i % 100)),
+                0.5 + i % 20, "10x10x10", 1, 1_000, new Product.Warehouse(WAREHOUSES[i % WAREHOUSES.length])))
+            .toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.omniproduct.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.OmniProductApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+// Replays a scenario against the whole application: starts the ImpactCO2 stand-in and, unless
+// the scenario targets a running instance, the application itself; seeds the catalog over HTTP;
+// then drives the traffic mix and writes the latency report.
+// Run with: gradle loadTest -Pscenario=<bundled name or file>
+public final class LoadTest {
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Scenario scenario = Scenario.load(args.length > 0 ? args[0] : "storefront");
+        Path reportDirectory = Path.of(args.length > 1 ? args[1] : "build/reports/loadtest").resolve(scenario.name());
+
+        try (ImpactCo2StandIn impactCo2 = new ImpactCo2StandIn(scenario.impactCo2());
+             ConfigurableApplicationContext application = scenario.target() == null ? start(scenario, impactCo2) : null;
+             HttpClient client = HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_1_1)
+                 .executor(Executors.newVirtualThreadPerTaskExecutor())
+                 .build()) {
+            URI base = URI.create(application == null
+                ? scenario.target()
+                : "http://localhost:" + application.getEnvironment().getProperty("local.server.port"));
+            System.out.printf("ImpactCO2 stand-in at %s%n", impactCo2.baseUrl());
+
+            System.out.printf("Seeding %,d products into %s%n", scenario.catalogSize(), base);
+            seed(client, base, scenario.catalogSize());
+
+            System.out.printf("Running scenario %s, the first %d s as warmup%n", scenario.name(), scenario.warmupSeconds());
+            LatencyReport report = new LatencyReport();
+            new OpenLoadGenerator(client, base, scenario, report).run();
+
+            double seconds = scenario.durationSeconds() - scenario.warmupSeconds();
+            report.print(System.out, seconds);
+            System.out.printf("ImpactCO2 stand-in: %,d calls, %,d failed on purpose%n",
+                impactCo2.calls(), impactCo2.failures());
+            report.write(reportDirectory, seconds);
+            System.out.printf("Histograms written to %s%n", reportDirectory.toAbsolutePath());
+        }
+    }
+
+    // Command line arguments, so they win over the application's own configuration
+    private static ConfigurableApplicationContext start(Scenario scenario, ImpactCo2StandIn impactCo2) {
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.jpa.show-sql=false",
+            "--omniproduct.carbon.impact-co2.base-url=" + impactCo2.baseUrl()));
+        scenario.properties().forEach((key, value) -> args.add("--" + key + "=" + value));
+        return new SpringApplicationBuilder(OmniProductApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static void seed(HttpClient client, URI base, int catalogSize) throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int from = 0; from < catalogSize; from += SEED_BATCH_SIZE) {
+            byte[] body = objectMapper.writeValueAsBytes(
+                LoadCatalog.products(from, Math.min(catalogSize, from + SEED_BATCH_SIZE)));
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/api/products/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with status " + response.statusCode() + ": "
+                    + response.body());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.omniproduct.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Sends requests at the scenario's arrival rate, each on its own virtual thread, without waiting
+// for earlier responses. A slow server therefore faces a growing number of requests in flight,
+// as it would in production, instead of a load generator that backs off.
+final class OpenLoadGenerator {
+
+    private final HttpClient client;
+    private final URI base;
+    private final Scenario scenario;
+    private final LatencyReport report;
+    private final Endpoint[] weightedEndpoints;
+
+    OpenLoadGenerator(HttpClient client, URI base, Scenario scenario, LatencyReport report) {
+        this.client = client;
+        this.base = base;
+        this.scenario = scenario;
+        this.report = report;
+        this.weightedEndpoints = weighted(scenario.mix());
+    }
+
+    void run() {
+        SplittableRandom arrivals = new SplittableRandom();
+        Semaphore inFlight = new Semaphore(scenario.maxInFlight());
+        long start = System.nanoTime();
+        long reportFrom = start + TimeUnit.SECONDS.toNanos(scenario.warmupSeconds());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long phaseStart = start;
+            for (Scenario.Phase phase : scenario.phases()) {
+                System.out.printf("%,.0f requests/s for %d s%n", phase.ratePerSecond(), phase.durationSeconds());
+                long phaseEnd = phaseStart + TimeUnit.SECONDS.toNanos(phase.durationSeconds());
+                double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / phase.ratePerSecond();
+                long scheduled = phaseStart;
+                while ((scheduled += gap(arrivals, meanGapNanos)) < phaseEnd) {
+                    waitUntil(scheduled);
+                    Endpoint endpoint = weightedEndpoints[arrivals.nextInt(weightedEndpoints.length)];
+                    boolean reported = scheduled >= reportFrom;
+                    if (!inFlight.tryAcquire()) {
+                        if (reported) {
+                            report.dropped(endpoint);
+                        }
+                        continue;
+                    }
+                    long sendAt = scheduled;
+                    executor.execute(() -> {
+                        try {
+                            send(endpoint, sendAt, reported);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+                phaseStart = phaseEnd;
+            }
+        }
+    }
+
+    private void send(Endpoint endpoint, long scheduled, boolean reported) {
+        Random random = ThreadLocalRandom.current();
+        int status;
+        try {
+            status = client.send(endpoint.request(base, scenario, random), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+        } catch (IOException e) {
+            status = LatencyReport.NO_RESPONSE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (reported) {
+            report.record(endpoint, System.nanoTime() - scheduled, status);
+        }
+    }
+
+    private long gap(SplittableRandom random, double meanGapNanos) {
+        return switch (scenario.arrivals()) {
+            case POISSON -> (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            case CONSTANT -> (long) meanGapNanos;
+        };
+    }
+
+    // Parks rather than sleeps, for sub-millisecond gaps at high rates
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    // One slot per unit of weight, so picking an endpoint is a single random index
+    private static Endpoint[] weighted(Map<String, Integer> mix) {
+        return mix.entrySet().stream()
+            .flatMap(entry -> Collections.nCopies(entry.getValue(), Endpoint.fromKey(entry.getKey())).stream())
+            .toArray(Endpoint[]::new);
+    }
+}
@@ -0,0 +1,101 @@
+package com.omniproduct.loadtest;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// A traffic mix replayed by LoadTest, read from a JSON file or from the bundled scenarios/<name>.json.
+// Requests arrive at the rate of each phase in turn whatever the response times (open model);
+// those scheduled during the first warmupSeconds are sent but not reported.
+public record Scenario(
+    String name,
+    // Base URL of a running instance; when absent the application is started in this JVM
+    String target,
+    int catalogSize,
+    Arrivals arrivals,
+    List<Phase> phases,
+    int warmupSeconds,
+    // Arrivals beyond this many requests in flight are dropped and counted as such
+    int maxInFlight,
+    // Relative weights of the endpoints: browse, slug, update, carbon
+    Map<String, Integer> mix,
+    // Share of slug lookups for slugs that do not exist, as stale links and bots produce
+    double slugMissRatio,
+    ImpactCo2 impactCo2,
+    // Extra application properties for an in-process run, e.g. spring.threads.virtual.enabled
+    Map<String, String> properties
+) {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+        .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+        .build();
+
+    public Scenario {
+        name = name == null ? "scenario" : name;
+        catalogSize = catalogSize == 0 ? 10_000 : catalogSize;
+        arrivals = arrivals == null ? Arrivals.POISSON : arrivals;
+        maxInFlight = maxInFlight == 0 ? 10_000 : maxInFlight;
+        impactCo2 = impactCo2 == null ? new ImpactCo2(new LatencyDistribution.Fixed(100), 0) : impactCo2;
+        properties = properties == null ? Map.of() : Map.copyOf(properties);
+        if (phases == null || phases.isEmpty()) {
+            throw new IllegalArgumentException("A scenario needs at least one phase");
+        }
+        phases = List.copyOf(phases);
+        if (mix == null || mix.isEmpty()) {
+            throw new IllegalArgumentException("A scenario needs a mix of endpoints");
+        }
+        mix = Map.copyOf(mix);
+        mix.keySet().forEach(Endpoint::fromKey);
+        if (mix.values().stream().anyMatch(weight -> weight < 0) || mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix weights must not be negative, and not all zero");
+        }
+        if (warmupSeconds < 0 || warmupSeconds >= phases.stream().mapToInt(Phase::durationSeconds).sum()) {
+            throw new IllegalArgumentException("The warmup must be shorter than the phases");
+        }
+    }
+
+    static Scenario load(String nameOrPath) throws IOException {
+        Path path = Path.of(nameOrPath);
+        if (Files.isRegularFile(path)) {
+            return MAPPER.readValue(path.toFile(), Scenario.class);
+        }
+        try (InputStream bundled = Scenario.class.getResourceAsStream("/scenarios/" + nameOrPath + ".json")) {
+            if (bundled == null) {
+                throw new IllegalArgumentException("No scenario file or bundled scenario named " + nameOrPath);
+            }
+            return MAPPER.readValue(bundled, Scenario.class);
+        }
+    }
+
+    int durationSeconds() {
+        return phases.stream().mapToInt(Phase::durationSeconds).sum();
+    }
+
+    public enum Arrivals {
+        // Exponential gaps between arrivals, as independent users produce
+        POISSON,
+        // Evenly spaced arrivals
+        CONSTANT
+    }
+
+    public record Phase(int durationSeconds, double ratePerSecond) {
+        public Phase {
+            if (durationSeconds <= 0 || ratePerSecond <= 0) {
+                throw new IllegalArgumentException("A phase needs a positive duration and rate");
+            }
+        }
+    }
+
+    public record ImpactCo2(LatencyDistribution latency, double errorRate) {
+        public ImpactCo2 {
+            latency = latency == null ? new LatencyDistribution.Fixed(100) : latency;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.omniproduct.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CatalogImportProperties.class)
+public class CatalogImportConfiguration {
+}
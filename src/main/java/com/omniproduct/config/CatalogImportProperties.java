@@ -0,0 +1,19 @@
+package com.omniproduct.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "omniproduct.import")
+public record CatalogImportProperties(
+    @DefaultValue("import") Path directory,
+    Path bootstrapFile,
+    @DefaultValue("1000") int batchSize,
+    @DefaultValue("4") int queueCapacity,
+    @DefaultValue("64MB") DataSize readWindow,
+    @DefaultValue("100") int maxReportedErrors,
+    @DefaultValue("1h") Duration jobRetention
+) {}
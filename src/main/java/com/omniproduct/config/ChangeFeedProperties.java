@@ -0,0 +1,16 @@
+package com.omniproduct.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "omniproduct.changes")
+public record ChangeFeedProperties(
+    @DefaultValue("7d") Duration retention,
+    @DefaultValue("1h") Duration purgeInterval,
+    @DefaultValue("500") int maxPageSize,
+    @DefaultValue("60s") Duration maxPollTimeout,
+    @DefaultValue("30m") Duration streamTimeout,
+    @DefaultValue("15s") Duration heartbeatInterval
+) {}
@@ -1,19 +1,77 @@
 package com.omniproduct.config;
 
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.omniproduct.infrastructure.resilience.ResiliencePipeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
-import java.time.Duration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
 
 @Configuration
 public class ExternalApiConfiguration {
     
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider impactCo2ConnectionProvider(TransportCarbonProperties properties) {
+        TransportCarbonProperties.Pool pool = properties.impactCo2().pool();
+        ConnectionProvider.Builder builder = poolSpec(ConnectionProvider.builder("impactco2"), pool, pool.maxConnections());
+        pool.maxConnectionsPerHost().forEach((hostAndPort, maxConnections) ->
+            builder.forRemoteHost(toAddress(hostAndPort), spec -> poolSpec(spec, pool, maxConnections)));
+        return builder.build();
+    }
+    
     @Bean
-    public RestTemplate externalApiRestTemplate(RestTemplateBuilder builder) {
+    public WebClient impactCo2WebClient(WebClient.Builder builder,
+                                        ConnectionProvider impactCo2ConnectionProvider,
+                                        TransportCarbonProperties properties) {
+        TransportCarbonProperties.ImpactCo2 impactCo2 = properties.impactCo2();
+        HttpClient httpClient = HttpClient.create(impactCo2ConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) impactCo2.connectTimeout().toMillis())
+            .responseTimeout(impactCo2.readTimeout());
+        if (impactCo2.http2() && impactCo2.baseUrl().startsWith("https")) {
+            httpClient = httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
         return builder
-            .setConnectTimeout(Duration.ofSeconds(5))
-            .setReadTimeout(Duration.ofSeconds(10))
+            .baseUrl(impactCo2.baseUrl())
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
             .build();
     }
+    
+    @Bean
+    public ResiliencePipeline impactCo2ResiliencePipeline(TransportCarbonProperties properties,
+                                                          MeterRegistry meterRegistry) {
+        TransportCarbonProperties.Resilience resilience = properties.resilience();
+        if (!resilience.enabled()) {
+            return ResiliencePipeline.passThrough("impactco2", properties.impactCo2().readTimeout());
+        }
+        ResiliencePipeline pipeline = new ResiliencePipeline("impactco2", resilience);
+        // 0 closed, 1 open, 2 half-open
+        meterRegistry.gauge("transport.carbon.circuit.state", pipeline,
+            p -> p.circuitBreaker().getState().getOrder());
+        meterRegistry.gauge("transport.carbon.circuit.failure.rate", pipeline,
+            p -> p.circuitBreaker().getMetrics().getFailureRate());
+        return pipeline;
+    }
+    
+    // A host-specific spec starts from Reactor's defaults, so it gets the same settings but its own size
+    private static <S extends ConnectionProvider.ConnectionPoolSpec<S>> S poolSpec(
+            S spec, TransportCarbonProperties.Pool pool, int maxConnections) {
+        return spec
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pool.pendingAcquireMaxCount())
+            .pendingAcquireTimeout(pool.pendingAcquireTimeout())
+            .maxIdleTime(pool.maxIdleTime());
+    }
+
+    // "host:port" keys, port defaulting to 443
+    private static InetSocketAddress toAddress(String hostAndPort) {
+        URI uri = URI.create("//" + hostAndPort);
+        return InetSocketAddress.createUnresolved(uri.getHost(), uri.getPort() == -1 ? 443 : uri.getPort());
+    }
 }
@@ -0,0 +1,19 @@
+package com.omniproduct.config;
+
+import com.omniproduct.service.RouteDistanceTable;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Footprints are recomputed by a scheduled job draining the products changed since its last run
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(FootprintProperties.class)
+public class FootprintConfiguration {
+
+    @Bean
+    public RouteDistanceTable routeDistanceTable(FootprintProperties properties) {
+        return RouteDistanceTable.load(properties.routeDistances());
+    }
+}
@@ -0,0 +1,17 @@
+package com.omniproduct.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "omniproduct.footprint")
+public record FootprintProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue({"road", "rail", "sea", "air"}) List<String> transportModes,
+    @DefaultValue("classpath:route-distances.csv") Resource routeDistances,
+    @DefaultValue("5s") Duration refreshInterval,
+    @DefaultValue("200") int batchSize
+) {}
@@ -0,0 +1,10 @@
+package com.omniproduct.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "omniproduct.pricing")
+public record PricingProperties(
+    @DefaultValue("1000") int maxQuoteLines,
+    @DefaultValue("100000") long cacheMaximumSize
+) {}
@@ -0,0 +1,33 @@
+package com.omniproduct.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.omniproduct.service.index.SlugIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SlugIndexProperties.class)
+public class SlugIndexConfiguration {
+
+    @Bean
+    public SlugIndex slugIndex(SlugIndexProperties properties, MeterRegistry meterRegistry) {
+        Cache<String, String> idsBySlug = Caffeine.newBuilder()
+            .maximumSize(properties.nearCacheMaximumSize())
+            .recordStats()
+            .build();
+        Cache<String, String> slugsById = Caffeine.newBuilder()
+            .maximumSize(properties.nearCacheMaximumSize())
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, idsBySlug, "productSlugs");
+        Counter filtered = Counter.builder("product.slug.filtered")
+            .description("Slug lookups answered by the Bloom filter without a query")
+            .register(meterRegistry);
+        return new SlugIndex(properties.expectedInsertions(), properties.falsePositiveProbability(),
+            idsBySlug, slugsById, filtered);
+    }
+}
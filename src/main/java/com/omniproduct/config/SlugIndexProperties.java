@@ -0,0 +1,11 @@
+package com.omniproduct.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "omniproduct.slug-index")
+public record SlugIndexProperties(
+    @DefaultValue("1000000") long expectedInsertions,
+    @DefaultValue("0.01") double falsePositiveProbability,
+    @DefaultValue("100000") long nearCacheMaximumSize
+) {}
@@ -0,0 +1,14 @@
+package com.omniproduct.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "omniproduct.stock")
+public record StockProperties(
+    @DefaultValue Set<String> hotProducts,
+    @DefaultValue("8") int stripes,
+    @DefaultValue("1s") Duration flushInterval
+) {}
@@ -0,0 +1,69 @@
+package com.omniproduct.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import com.omniproduct.infrastructure.adapter.EmissionFactorTransportAdapter;
+import com.omniproduct.infrastructure.adapter.ImpactCo2TransportAdapter;
+import com.omniproduct.infrastructure.decorator.CachingTransportCarbonPort;
+import com.omniproduct.infrastructure.decorator.CoalescingTransportCarbonPort;
+import com.omniproduct.infrastructure.decorator.FallbackTransportCarbonPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+// Assembles the TransportCarbonPort used by the services from the configured
+// provider and the decorators enabled by configuration
+@Configuration
+@EnableConfigurationProperties(TransportCarbonProperties.class)
+public class TransportCarbonConfiguration {
+
+    @Bean
+    @Primary
+    public TransportCarbonPort transportCarbonPort(
+            ImpactCo2TransportAdapter impactCo2Adapter,
+            EmissionFactorTransportAdapter offlineAdapter,
+            TransportCarbonProperties properties,
+            MeterRegistry meterRegistry) {
+        if (properties.provider() == TransportCarbonProperties.Provider.OFFLINE) {
+            return offlineAdapter;
+        }
+
+        TransportCarbonPort port = impactCo2Adapter;
+
+        if (properties.coalescing().enabled()) {
+            CoalescingTransportCarbonPort coalescing = new CoalescingTransportCarbonPort(
+                port,
+                meterRegistry.counter("transport.carbon.calls", "result", "outbound"),
+                meterRegistry.counter("transport.carbon.calls", "result", "collapsed"));
+            meterRegistry.gauge("transport.carbon.calls.in.flight", coalescing, CoalescingTransportCarbonPort::inFlightCount);
+            port = coalescing;
+        }
+
+        TransportCarbonProperties.Cache cacheProperties = properties.cache();
+        if (cacheProperties.enabled()) {
+            Cache<TransportRequest, TransportCarbonMetrics> cache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.maximumSize())
+                .expireAfterWrite(cacheProperties.timeToLive())
+                .recordStats()
+                .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "transportCarbon");
+            port = new CachingTransportCarbonPort(
+                port, cache, cacheProperties.distanceBucketKm(), cacheProperties.weightBucketKg());
+        }
+
+        // Outermost, so offline answers are never cached as ImpactCO2 results
+        TransportCarbonProperties.Fallback fallbackProperties = properties.fallback();
+        if (fallbackProperties.enabled()) {
+            port = new FallbackTransportCarbonPort(
+                port, offlineAdapter, fallbackProperties.timeout(),
+                meterRegistry.counter("transport.carbon.fallbacks"));
+        }
+        return port;
+    }
+}
@@ -0,0 +1,96 @@
+package com.omniproduct.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "omniproduct.carbon")
+public record TransportCarbonProperties(
+    @DefaultValue("impact-co2") Provider provider,
+    @DefaultValue Fallback fallback,
+    @DefaultValue Offline offline,
+    @DefaultValue Cache cache,
+    @DefaultValue Coalescing coalescing,
+    @DefaultValue Batch batch,
+    @DefaultValue ImpactCo2 impactCo2,
+    @DefaultValue Resilience resilience
+) {
+    public enum Provider {
+        IMPACT_CO2,
+        OFFLINE
+    }
+    
+    public record Fallback(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("2s") Duration timeout
+    ) {}
+    
+    public record Offline(
+        @DefaultValue("classpath:emission-factors.csv") Resource emissionFactors
+    ) {}
+    
+    public record Cache(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("12h") Duration timeToLive,
+        @DefaultValue("1.0") double distanceBucketKm,
+        @DefaultValue("0.1") double weightBucketKg
+    ) {}
+    
+    public record Coalescing(
+        @DefaultValue("true") boolean enabled
+    ) {}
+    
+    public record Batch(
+        @DefaultValue("16") int maxConcurrency,
+        @DefaultValue("500") int maxLines
+    ) {}
+    
+    public record ImpactCo2(
+        @DefaultValue("https://impactco2.fr/api/v1") String baseUrl,
+        @DefaultValue("5s") Duration connectTimeout,
+        @DefaultValue("10s") Duration readTimeout,
+        @DefaultValue("true") boolean http2,
+        @DefaultValue Pool pool
+    ) {}
+    
+    public record Pool(
+        @DefaultValue("50") int maxConnections,
+        @DefaultValue Map<String, Integer> maxConnectionsPerHost,
+        @DefaultValue("500") int pendingAcquireMaxCount,
+        @DefaultValue("5s") Duration pendingAcquireTimeout,
+        @DefaultValue("30s") Duration maxIdleTime
+    ) {}
+    
+    public record Resilience(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("3s") Duration callTimeout,
+        @DefaultValue CircuitBreaker circuitBreaker,
+        @DefaultValue Bulkhead bulkhead,
+        @DefaultValue Hedging hedging
+    ) {}
+    
+    public record CircuitBreaker(
+        @DefaultValue("50") float failureRateThreshold,
+        @DefaultValue("2s") Duration slowCallDurationThreshold,
+        @DefaultValue("80") float slowCallRateThreshold,
+        @DefaultValue("50") int slidingWindowSize,
+        @DefaultValue("20") int minimumNumberOfCalls,
+        @DefaultValue("30s") Duration waitDurationInOpenState,
+        @DefaultValue("5") int permittedCallsInHalfOpenState
+    ) {}
+    
+    public record Bulkhead(
+        @DefaultValue("32") int maxConcurrentCalls
+    ) {}
+    
+    public record Hedging(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0.95") double latencyPercentile,
+        @DefaultValue("20") int minimumSamples,
+        @DefaultValue("50ms") Duration minimumDelay
+    ) {}
+}
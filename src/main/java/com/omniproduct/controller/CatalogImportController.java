@@ -0,0 +1,41 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.model.ImportProgress;
+import com.omniproduct.service.importing.CatalogImportService;
+import com.omniproduct.service.importing.ImportFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/products/import")
+public class CatalogImportController {
+
+    private final CatalogImportService importService;
+
+    public CatalogImportController(CatalogImportService importService) {
+        this.importService = importService;
+    }
+
+    // Starts the import in the background; poll the returned location for its progress
+    @PostMapping
+    public ResponseEntity<ImportProgress> startImport(@RequestBody ImportRequest request) {
+        ImportProgress progress = importService.start(request.file(), request.format());
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/products/import/" + progress.jobId()))
+            .body(progress);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportProgress> getProgress(@PathVariable String jobId) {
+        return importService.progress(jobId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    public record ImportRequest(
+        String file,
+        ImportFormat format
+    ) {}
+}
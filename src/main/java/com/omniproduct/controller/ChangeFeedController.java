@@ -0,0 +1,35 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.model.ChangePage;
+import com.omniproduct.service.ChangeFeedService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Changes to products and suppliers after a given offset; without one, from the oldest retained.
+// 410 when the offset is older than the retention, the consumer then has to resync from the catalog
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    // Long poll: with a timeout (in seconds) the request waits for changes when there are none yet
+    @GetMapping
+    public DeferredResult<ChangePage> getChanges(@RequestParam(required = false) Long after,
+                                                 @RequestParam(defaultValue = "" + ChangeFeedService.DEFAULT_PAGE_SIZE) int limit,
+                                                 @RequestParam(defaultValue = "0") long timeout) {
+        return changeFeedService.poll(after, limit, timeout * 1000);
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeFeedService.stream(lastEventId != null ? lastEventId : after);
+    }
+}
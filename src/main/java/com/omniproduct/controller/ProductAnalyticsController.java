@@ -0,0 +1,36 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.service.ProductFacetService;
+import com.omniproduct.service.index.ProductFacetIndex;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Catalog aggregates for finance, computed over the in-memory product snapshot. Stock includes
+// the reservations of hot products not written to the database yet.
+@RestController
+@RequestMapping("/api/products/analytics")
+public class ProductAnalyticsController {
+
+    private final ProductFacetService facetService;
+
+    public ProductAnalyticsController(ProductFacetService facetService) {
+        this.facetService = facetService;
+    }
+
+    @GetMapping("/inventory")
+    public List<ProductFacetIndex.WarehouseInventory> inventoryByWarehouse() {
+        return facetService.inventoryByWarehouse();
+    }
+
+    @GetMapping("/regions")
+    public List<ProductFacetIndex.RegionStock> stockByRegion() {
+        return facetService.stockByRegion();
+    }
+
+    @GetMapping("/kilos")
+    public ProductFacetIndex.Histogram kilosHistogram(
+            @RequestParam(defaultValue = "" + ProductFacetService.DEFAULT_HISTOGRAM_BUCKETS) int buckets) {
+        return facetService.kilosHistogram(buckets);
+    }
+}
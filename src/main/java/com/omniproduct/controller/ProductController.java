@@ -1,21 +1,37 @@
 package com.omniproduct.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.omniproduct.model.Product;
+import com.omniproduct.model.ProductBatchResult;
+import com.omniproduct.model.ProductDeleteResult;
+import com.omniproduct.model.ProductPage;
 import com.omniproduct.service.ProductService;
 import com.omniproduct.exception.ProductNameException;
+import com.omniproduct.exception.ProductVersionConflictException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final int NDJSON_FLUSH_INTERVAL = 100;
+
     private final ProductService productService;
+    private final ObjectWriter productWriter;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productWriter = objectMapper.writerFor(Product.class);
     }
 
     @GetMapping
@@ -29,9 +45,44 @@ public class ProductController {
         return productService.findAll();
     }
 
+    @GetMapping("/page")
+    public ProductPage getProductPage(@RequestParam(required = false) String after,
+                                      @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int size) {
+        return productService.findPage(after, size);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            productService.forEachProduct(product -> {
+                try {
+                    out.write(productWriter.writeValueAsBytes(product));
+                    out.write('\n');
+                    // Flush the first line right away so clients get bytes before the scan completes
+                    if (written[0]++ % NDJSON_FLUSH_INTERVAL == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable String id) {
         return productService.findById(id)
+                .map(ProductController::withETag)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/slug/{slug}")
+    public ResponseEntity<Product> getProductBySlug(@PathVariable String slug) {
+        return productService.findBySlug(slug)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -55,11 +106,14 @@ public class ProductController {
         throw new ProductNameException("Something went wrong in the void");
     }
 
+    @PostMapping("/batch")
+    public ProductBatchResult createProducts(@RequestBody List<Product> products) {
+        return productService.saveAll(products);
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable String id, @RequestBody Product product) {
-        if (productService.findById(id).isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Product> updateProduct(@PathVariable String id, @RequestBody Product product,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // In this simple implementation, we just use the id from the path
         Product updatedProduct = new Product(
                 id,
@@ -75,16 +129,65 @@ public class ProductController {
                 product.getStock(),
                 product.getWarehouse()
         );
+        // If-Match or the version in the body make the replacement conditional
+        Long version = parseVersion(ifMatch);
+        return productService.replace(updatedProduct, version != null ? version : product.getVersion())
+                .map(ProductController::withETag)
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-        return ResponseEntity.ok(productService.save(updatedProduct));
+    // JSON merge patch: only the fields present are changed, null clears a field.
+    // 412 when the product has changed since the version given in If-Match or in the patch.
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Product> patchProduct(@PathVariable String id, @RequestBody JsonNode changes,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return productService.patch(id, changes, parseVersion(ifMatch))
+                .map(ProductController::withETag)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<Product> withETag(Product product) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (product.getVersion() != null) {
+            response.eTag(String.valueOf(product.getVersion()));
+        }
+        return response.body(product);
+    }
+
+    // The ETag is the version; "*" or no header means any version
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim().replaceFirst("^W/", "").replace("\"", "");
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new ProductVersionConflictException("Unknown entity tag: " + ifMatch);
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
-        if (productService.findById(id).isEmpty()) {
+        if (!productService.deleteById(id)) {
             return ResponseEntity.notFound().build();
         }
-        productService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    // POST rather than DELETE: the id and slug lists go in the body
+    @PostMapping("/batch/delete")
+    public ProductDeleteResult deleteProducts(@RequestBody ProductDeleteRequest request) {
+        return productService.deleteAll(request.ids(), request.slugs());
+    }
+
+    @DeleteMapping("/supplier/{supplierId}")
+    public ProductDeleteResult deleteProductsBySupplier(@PathVariable String supplierId) {
+        return new ProductDeleteResult(productService.deleteBySupplierId(supplierId), List.of());
+    }
+
+    public record ProductDeleteRequest(
+        List<String> ids,
+        List<String> slugs
+    ) {}
 }
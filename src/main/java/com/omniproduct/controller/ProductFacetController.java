@@ -0,0 +1,41 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.service.ProductFacetService;
+import com.omniproduct.service.index.ProductFacetIndex;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/products")
+public class ProductFacetController {
+
+    private final ProductFacetService facetService;
+
+    public ProductFacetController(ProductFacetService facetService) {
+        this.facetService = facetService;
+    }
+
+    // e.g. /api/products/facets?inStock=true&minPrice=10&maxPrice=50&warehouse=Lyon&region=Europe
+    @GetMapping("/facets")
+    public ProductFacetIndex.Result filter(@RequestParam(required = false) Double minPrice,
+                                           @RequestParam(required = false) Double maxPrice,
+                                           @RequestParam(required = false) Double minKilos,
+                                           @RequestParam(required = false) Double maxKilos,
+                                           @RequestParam(required = false) Double minQuantity,
+                                           @RequestParam(required = false) Double maxQuantity,
+                                           @RequestParam(required = false) Boolean inStock,
+                                           @RequestParam(required = false) Set<String> warehouse,
+                                           @RequestParam(required = false) Set<String> region,
+                                           @RequestParam(defaultValue = "" + ProductFacetService.DEFAULT_LIMIT) int limit) {
+        ProductFacetIndex.Query query = new ProductFacetIndex.Query(
+            new ProductFacetIndex.Range(minPrice, maxPrice),
+            new ProductFacetIndex.Range(minKilos, maxKilos),
+            new ProductFacetIndex.Range(minQuantity, maxQuantity),
+            inStock,
+            warehouse,
+            region
+        );
+        return facetService.filter(query, limit);
+    }
+}
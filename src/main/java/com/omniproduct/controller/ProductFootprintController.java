@@ -0,0 +1,27 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.model.ProductFootprint;
+import com.omniproduct.service.ProductFootprintService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/products")
+public class ProductFootprintController {
+
+    private final ProductFootprintService footprintService;
+
+    public ProductFootprintController(ProductFootprintService footprintService) {
+        this.footprintService = footprintService;
+    }
+
+    // Served from the precomputed table: no carbon calculation happens on this path
+    @GetMapping("/{id}/footprint")
+    public ResponseEntity<List<ProductFootprint>> getFootprint(@PathVariable String id) {
+        return footprintService.findByProductId(id)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
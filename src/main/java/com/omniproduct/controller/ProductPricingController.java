@@ -0,0 +1,24 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.model.PriceQuote;
+import com.omniproduct.model.QuoteRequest;
+import com.omniproduct.service.ProductPricingService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/products")
+public class ProductPricingController {
+
+    private final ProductPricingService pricingService;
+
+    public ProductPricingController(ProductPricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    // e.g. {"lines": [{"productId": "p1", "quantity": 3}, {"productId": "p2", "quantity": 1}], "codes": ["SUMMER10"]}
+    // Promotion code discounts of the products apply only with their code in codes
+    @PostMapping("/quote")
+    public PriceQuote quote(@RequestBody QuoteRequest request) {
+        return pricingService.quote(request);
+    }
+}
@@ -0,0 +1,23 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.service.ProductSearchService;
+import com.omniproduct.service.index.ProductSearchIndex;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/products")
+public class ProductSearchController {
+
+    private final ProductSearchService searchService;
+
+    public ProductSearchController(ProductSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Every word must match, the last one also as a prefix, so "blue lam" finds "Blue Lamp"
+    @GetMapping("/search")
+    public ProductSearchIndex.Result search(@RequestParam String q,
+                                            @RequestParam(defaultValue = "" + ProductSearchService.DEFAULT_LIMIT) int limit) {
+        return searchService.search(q, limit);
+    }
+}
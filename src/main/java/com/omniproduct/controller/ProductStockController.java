@@ -0,0 +1,34 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.model.StockChange;
+import com.omniproduct.model.StockLevel;
+import com.omniproduct.service.ProductStockService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/products/{id}/stock")
+public class ProductStockController {
+
+    private final ProductStockService stockService;
+
+    public ProductStockController(ProductStockService stockService) {
+        this.stockService = stockService;
+    }
+
+    @GetMapping
+    public ResponseEntity<StockLevel> getStock(@PathVariable String id) {
+        return ResponseEntity.of(stockService.findStock(id));
+    }
+
+    // 409 when the stock does not cover the quantity; nothing is reserved then
+    @PostMapping("/reserve")
+    public ResponseEntity<StockLevel> reserve(@PathVariable String id, @RequestBody StockChange change) {
+        return ResponseEntity.of(stockService.reserve(id, change.quantity()));
+    }
+
+    @PostMapping("/release")
+    public ResponseEntity<StockLevel> release(@PathVariable String id, @RequestBody StockChange change) {
+        return ResponseEntity.of(stockService.release(id, change.quantity()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.omniproduct.controller;
 
+import com.omniproduct.model.ProductSuppliers;
 import com.omniproduct.model.Supplier;
 import com.omniproduct.service.SupplierService;
 import org.springframework.http.HttpStatus;
@@ -50,6 +51,11 @@ public class SupplierController {
         return ResponseEntity.ok(suppliers);
     }
     
+    @GetMapping("/product/{productId}/regions")
+    public ResponseEntity<ProductSuppliers> getProductSuppliers(@PathVariable String productId) {
+        return ResponseEntity.ok(supplierService.getProductSuppliers(productId));
+    }
+    
     @GetMapping("/country/{country}")
     public ResponseEntity<List<Supplier>> getSuppliersByCountry(@PathVariable String country) {
         List<Supplier> suppliers = supplierService.getSuppliersByCountry(country);
@@ -0,0 +1,53 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.service.ProductTransportService;
+import com.omniproduct.service.ProductTransportService.ShipmentLine;
+import io.vavr.control.Try;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/transport")
+public class TransportController {
+    private final ProductTransportService productTransportService;
+    
+    public TransportController(ProductTransportService productTransportService) {
+        this.productTransportService = productTransportService;
+    }
+    
+    // Asynchronous: the Tomcat worker is released while the remote call is in flight
+    @PostMapping("/emissions")
+    public CompletableFuture<ResponseEntity<TransportCarbonMetrics>> calculateEmissions(@RequestBody ShipmentLine line) {
+        return productTransportService.calculateShipmentCarbonAsync(
+            line.transportMode(),
+            line.distanceKm(),
+            line.weightKg()
+        ).thenApply(ResponseEntity::ok);
+    }
+    
+    @PostMapping("/emissions/batch")
+    public ResponseEntity<List<ShipmentLineResult>> calculateEmissionsBatch(@RequestBody List<ShipmentLine> lines) {
+        List<Try<TransportCarbonMetrics>> results = productTransportService.calculateShipmentCarbonBatch(lines);
+        List<ShipmentLineResult> body = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Try<TransportCarbonMetrics> result = results.get(i);
+            body.add(new ShipmentLineResult(
+                i,
+                result.getOrNull(),
+                result.isFailure() ? result.getCause().getMessage() : null
+            ));
+        }
+        return ResponseEntity.ok(body);
+    }
+    
+    public record ShipmentLineResult(
+        int line,
+        TransportCarbonMetrics metrics,
+        String error
+    ) {}
+}
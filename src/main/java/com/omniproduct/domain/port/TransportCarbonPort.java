@@ -2,8 +2,28 @@ package com.omniproduct.domain.port;
 
 import com.omniproduct.domain.model.TransportCarbonMetrics;
 import com.omniproduct.domain.model.TransportRequest;
+import io.vavr.control.Try;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface TransportCarbonPort {
     
     TransportCarbonMetrics calculateEmissions(TransportRequest transportRequest);
+    
+    // Non-blocking adapters override this; the default computes on the caller thread
+    default CompletableFuture<TransportCarbonMetrics> calculateEmissionsAsync(TransportRequest transportRequest) {
+        try {
+            return CompletableFuture.completedFuture(calculateEmissions(transportRequest));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    // One result per request, in request order; a failed item does not fail the batch
+    default List<Try<TransportCarbonMetrics>> calculateEmissionsBatch(List<TransportRequest> transportRequests) {
+        return transportRequests.stream()
+            .map(request -> Try.of(() -> calculateEmissions(request)))
+            .toList();
+    }
 }
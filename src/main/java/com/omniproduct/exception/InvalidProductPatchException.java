@@ -0,0 +1,11 @@
+package com.omniproduct.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidProductPatchException extends RuntimeException {
+    public InvalidProductPatchException(String message) {
+        super(message);
+    }
+}
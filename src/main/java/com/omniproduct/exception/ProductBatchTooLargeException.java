@@ -0,0 +1,11 @@
+package com.omniproduct.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class ProductBatchTooLargeException extends RuntimeException {
+    public ProductBatchTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.omniproduct.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ProductSlugConflictException extends RuntimeException {
+    public ProductSlugConflictException(String message) {
+        super(message);
+    }
+}
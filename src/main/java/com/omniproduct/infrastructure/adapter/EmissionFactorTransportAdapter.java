@@ -0,0 +1,98 @@
+package com.omniproduct.infrastructure.adapter;
+
+import com.omniproduct.config.TransportCarbonProperties;
+import com.omniproduct.domain.exception.TransportCarbonException;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Computes emissions in-process from a table of per tonne-km emission factors,
+// so no network call is needed
+@Component
+public class EmissionFactorTransportAdapter implements TransportCarbonPort {
+    
+    private final Map<String, EmissionFactor> factors;
+    
+    @Autowired
+    public EmissionFactorTransportAdapter(TransportCarbonProperties properties) {
+        this(properties.offline().emissionFactors());
+    }
+    
+    public EmissionFactorTransportAdapter(Resource emissionFactors) {
+        this.factors = load(emissionFactors);
+    }
+    
+    @Override
+    public TransportCarbonMetrics calculateEmissions(TransportRequest transportRequest) {
+        EmissionFactor factor = factors.get(normalize(transportRequest.transportMode()));
+        if (factor == null) {
+            throw new TransportCarbonException(
+                "No emission factor for transport mode: " + transportRequest.transportMode());
+        }
+        double tonneKm = transportRequest.distanceKm() * transportRequest.weightKg() / 1000;
+        return new TransportCarbonMetrics(
+            tonneKm * factor.co2EquivalentPerTonneKm(),
+            tonneKm * factor.co2DirectPerTonneKm(),
+            transportRequest.transportMode(),
+            transportRequest.distanceKm(),
+            transportRequest.weightKg()
+        );
+    }
+    
+    public Set<String> supportedModes() {
+        return factors.keySet();
+    }
+    
+    // CSV: transport_mode,co2e_kg_per_tonne_km,co2_direct_kg_per_tonne_km; '#' starts a comment
+    private static Map<String, EmissionFactor> load(Resource resource) {
+        Map<String, EmissionFactor> factors = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            boolean header = true;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                String[] columns = line.split(",");
+                if (columns.length != 3) {
+                    throw new IllegalStateException("Malformed emission factor line in " + resource + ": " + line);
+                }
+                factors.put(normalize(columns[0]), new EmissionFactor(
+                    Double.parseDouble(columns[1].strip()),
+                    Double.parseDouble(columns[2].strip())
+                ));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read emission factors from " + resource, e);
+        }
+        return Map.copyOf(factors);
+    }
+    
+    private static String normalize(String transportMode) {
+        return transportMode.strip().toLowerCase(Locale.ROOT);
+    }
+    
+    private record EmissionFactor(
+        double co2EquivalentPerTonneKm,
+        double co2DirectPerTonneKm
+    ) {}
+}
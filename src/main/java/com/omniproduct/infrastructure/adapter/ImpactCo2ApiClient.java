@@ -1,23 +1,34 @@
 package com.omniproduct.infrastructure.adapter;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class ImpactCo2ApiClient {
     
-    private static final String BASE_URL = "https://impactco2.fr/api/v1";
     private static final String TRANSPORT_ENDPOINT = "/transport/emissions";
     
-    private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    
+    public ImpactCo2ApiClient(WebClient impactCo2WebClient) {
+        this.webClient = impactCo2WebClient;
+    }
     
-    public ImpactCo2ApiClient(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    // Completes on the HTTP client's event loop; no caller thread waits for the response.
+    // The exchange is aborted once the timeout elapses or the returned future is cancelled
+    public CompletableFuture<ImpactCo2Response> calculateEmissionsAsync(ImpactCo2Request request, Duration timeout) {
+        return post(request).timeout(timeout).toFuture();
     }
     
-    public ImpactCo2Response calculateEmissions(ImpactCo2Request request) {
-        String url = BASE_URL + TRANSPORT_ENDPOINT;
-        return restTemplate.postForObject(url, request, ImpactCo2Response.class);
+    private Mono<ImpactCo2Response> post(ImpactCo2Request request) {
+        return webClient.post()
+            .uri(TRANSPORT_ENDPOINT)
+            .bodyValue(request)
+            .retrieve()
+            .bodyToMono(ImpactCo2Response.class);
     }
 }
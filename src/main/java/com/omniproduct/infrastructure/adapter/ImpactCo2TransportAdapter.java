@@ -1,34 +1,117 @@
 package com.omniproduct.infrastructure.adapter;
 
+import com.omniproduct.config.TransportCarbonProperties;
 import com.omniproduct.domain.exception.TransportCarbonException;
 import com.omniproduct.domain.model.TransportCarbonMetrics;
 import com.omniproduct.domain.model.TransportRequest;
 import com.omniproduct.domain.port.TransportCarbonPort;
+import com.omniproduct.infrastructure.resilience.ResiliencePipeline;
+import io.vavr.control.Try;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClientException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Component
 public class ImpactCo2TransportAdapter implements TransportCarbonPort {
     
     private final ImpactCo2ApiClient apiClient;
+    private final ResiliencePipeline resiliencePipeline;
+    private final Semaphore batchPermits;
+    
+    @Autowired
+    public ImpactCo2TransportAdapter(ImpactCo2ApiClient apiClient, ResiliencePipeline impactCo2ResiliencePipeline,
+                                     TransportCarbonProperties properties) {
+        this(apiClient, impactCo2ResiliencePipeline, properties.batch().maxConcurrency());
+    }
     
-    public ImpactCo2TransportAdapter(ImpactCo2ApiClient apiClient) {
+    public ImpactCo2TransportAdapter(ImpactCo2ApiClient apiClient, ResiliencePipeline resiliencePipeline,
+                                     int batchMaxConcurrency) {
         this.apiClient = apiClient;
+        this.resiliencePipeline = resiliencePipeline;
+        this.batchPermits = new Semaphore(batchMaxConcurrency);
     }
     
     @Override
     public TransportCarbonMetrics calculateEmissions(TransportRequest transportRequest) {
         try {
-            ImpactCo2Request apiRequest = mapToApiRequest(transportRequest);
-            ImpactCo2Response apiResponse = apiClient.calculateEmissions(apiRequest);
-            return mapToDomainModel(apiResponse);
-        } catch (RestClientException e) {
-            throw new TransportCarbonException(
-                "Failed to calculate transport emissions: " + e.getMessage(), e);
+            return calculateEmissionsAsync(transportRequest).join();
         } catch (Exception e) {
-            throw new TransportCarbonException(
-                "Unexpected error during carbon calculation: " + e.getMessage(), e);
+            throw translate(e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<TransportCarbonMetrics> calculateEmissionsAsync(TransportRequest transportRequest) {
+        ImpactCo2Request apiRequest = mapToApiRequest(transportRequest);
+        return resiliencePipeline.execute(timeout -> apiClient.calculateEmissionsAsync(apiRequest, timeout))
+            .thenApply(this::mapToDomainModel)
+            .exceptionallyCompose(e -> CompletableFuture.failedFuture(translate(e)));
+    }
+    
+    // Identical requests are sent once; distinct ones fan out on virtual threads,
+    // with the number of calls in flight bounded across all concurrent batches
+    @Override
+    public List<Try<TransportCarbonMetrics>> calculateEmissionsBatch(List<TransportRequest> transportRequests) {
+        Map<TransportRequest, Future<TransportCarbonMetrics>> calls = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (TransportRequest request : transportRequests) {
+                calls.computeIfAbsent(request, distinct -> executor.submit(() -> calculateWithPermit(distinct)));
+            }
+            List<Try<TransportCarbonMetrics>> results = new ArrayList<>(transportRequests.size());
+            for (TransportRequest request : transportRequests) {
+                results.add(await(calls.get(request), calls.values()));
+            }
+            return results;
+        }
+    }
+    
+    private TransportCarbonMetrics calculateWithPermit(TransportRequest transportRequest) throws InterruptedException {
+        batchPermits.acquire();
+        try {
+            return calculateEmissions(transportRequest);
+        } finally {
+            batchPermits.release();
+        }
+    }
+    
+    // An interrupted caller stops the whole batch: the calls still running are cancelled
+    private static Try<TransportCarbonMetrics> await(Future<TransportCarbonMetrics> call,
+                                                     Collection<Future<TransportCarbonMetrics>> batch) {
+        try {
+            return Try.success(call.get());
+        } catch (ExecutionException e) {
+            return Try.failure(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(future -> future.cancel(true));
+            throw new TransportCarbonException("Interrupted while waiting for a batch of transport emissions", e);
+        }
+    }
+    
+    private static TransportCarbonException translate(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TransportCarbonException transportCarbonException) {
+            return transportCarbonException;
+        }
+        if (cause instanceof WebClientException) {
+            return new TransportCarbonException(
+                "Failed to calculate transport emissions: " + cause.getMessage(), cause);
         }
+        return new TransportCarbonException(
+            "Unexpected error during carbon calculation: " + cause.getMessage(), cause);
     }
     
     private ImpactCo2Request mapToApiRequest(TransportRequest transportRequest) {
@@ -0,0 +1,127 @@
+package com.omniproduct.infrastructure.decorator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import io.vavr.control.Try;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Memoizes emissions per (mode, distance bucket, weight bucket). Emission factors
+// are expressed per tonne-km, so a bucket's result is rescaled linearly to the
+// exact distance and weight of each request.
+public class CachingTransportCarbonPort implements TransportCarbonPort {
+    
+    private final TransportCarbonPort delegate;
+    private final Cache<TransportRequest, TransportCarbonMetrics> cache;
+    private final double distanceBucketKm;
+    private final double weightBucketKg;
+    
+    public CachingTransportCarbonPort(TransportCarbonPort delegate,
+                                      Cache<TransportRequest, TransportCarbonMetrics> cache,
+                                      double distanceBucketKm,
+                                      double weightBucketKg) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.distanceBucketKm = distanceBucketKm;
+        this.weightBucketKg = weightBucketKg;
+    }
+    
+    @Override
+    public TransportCarbonMetrics calculateEmissions(TransportRequest transportRequest) {
+        TransportRequest key = quantize(transportRequest);
+        TransportCarbonMetrics metrics = cache.getIfPresent(key);
+        if (metrics == null) {
+            // Not computed under the cache lock: the remote call can take seconds
+            metrics = delegate.calculateEmissions(key);
+            cache.put(key, metrics);
+        }
+        return rescale(metrics, key, transportRequest);
+    }
+    
+    @Override
+    public CompletableFuture<TransportCarbonMetrics> calculateEmissionsAsync(TransportRequest transportRequest) {
+        TransportRequest key = quantize(transportRequest);
+        TransportCarbonMetrics metrics = cache.getIfPresent(key);
+        if (metrics != null) {
+            return CompletableFuture.completedFuture(rescale(metrics, key, transportRequest));
+        }
+        return delegate.calculateEmissionsAsync(key).thenApply(loaded -> {
+            cache.put(key, loaded);
+            return rescale(loaded, key, transportRequest);
+        });
+    }
+    
+    // Cached items are answered locally; only the distinct misses reach the delegate, as one batch
+    @Override
+    public List<Try<TransportCarbonMetrics>> calculateEmissionsBatch(List<TransportRequest> transportRequests) {
+        List<TransportRequest> keys = transportRequests.stream().map(this::quantize).toList();
+        Map<TransportRequest, TransportCarbonMetrics> cached = cache.getAllPresent(keys);
+        List<TransportRequest> misses = keys.stream()
+            .filter(key -> !cached.containsKey(key))
+            .distinct()
+            .toList();
+        
+        Map<TransportRequest, Try<TransportCarbonMetrics>> loaded = new HashMap<>();
+        if (!misses.isEmpty()) {
+            List<Try<TransportCarbonMetrics>> results = delegate.calculateEmissionsBatch(misses);
+            for (int i = 0; i < misses.size(); i++) {
+                TransportRequest key = misses.get(i);
+                Try<TransportCarbonMetrics> result = results.get(i);
+                result.forEach(metrics -> cache.put(key, metrics));
+                loaded.put(key, result);
+            }
+        }
+        
+        List<Try<TransportCarbonMetrics>> results = new ArrayList<>(transportRequests.size());
+        for (int i = 0; i < transportRequests.size(); i++) {
+            TransportRequest key = keys.get(i);
+            TransportRequest request = transportRequests.get(i);
+            Try<TransportCarbonMetrics> result = cached.containsKey(key)
+                ? Try.success(cached.get(key))
+                : loaded.get(key);
+            results.add(result.map(metrics -> rescale(metrics, key, request)));
+        }
+        return results;
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    TransportRequest quantize(TransportRequest request) {
+        return new TransportRequest(
+            request.transportMode(),
+            roundToBucket(request.distanceKm(), distanceBucketKm),
+            roundToBucket(request.weightKg(), weightBucketKg)
+        );
+    }
+    
+    private static double roundToBucket(double value, double bucket) {
+        if (bucket <= 0) {
+            return value;
+        }
+        return Math.max(1, Math.round(value / bucket)) * bucket;
+    }
+    
+    private static TransportCarbonMetrics rescale(TransportCarbonMetrics metrics, TransportRequest key,
+                                                  TransportRequest request) {
+        if (key.equals(request)) {
+            return metrics;
+        }
+        double factor = (request.distanceKm() / key.distanceKm()) * (request.weightKg() / key.weightKg());
+        return new TransportCarbonMetrics(
+            metrics.co2EquivalentKg() * factor,
+            metrics.co2DirectKg() == null ? null : metrics.co2DirectKg() * factor,
+            metrics.transportMode(),
+            request.distanceKm(),
+            request.weightKg()
+        );
+    }
+}
@@ -0,0 +1,80 @@
+package com.omniproduct.infrastructure.decorator;
+
+import com.omniproduct.domain.exception.TransportCarbonException;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import io.micrometer.core.instrument.Counter;
+import io.vavr.control.Try;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Single-flight: concurrent identical requests share one outbound call and its outcome
+public class CoalescingTransportCarbonPort implements TransportCarbonPort {
+    
+    private final TransportCarbonPort delegate;
+    private final Map<TransportRequest, CompletableFuture<TransportCarbonMetrics>> inFlight = new ConcurrentHashMap<>();
+    private final Counter outboundCalls;
+    private final Counter collapsedCalls;
+    
+    public CoalescingTransportCarbonPort(TransportCarbonPort delegate, Counter outboundCalls, Counter collapsedCalls) {
+        this.delegate = delegate;
+        this.outboundCalls = outboundCalls;
+        this.collapsedCalls = collapsedCalls;
+    }
+    
+    @Override
+    public TransportCarbonMetrics calculateEmissions(TransportRequest transportRequest) {
+        try {
+            return calculateEmissionsAsync(transportRequest).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new TransportCarbonException("Unexpected error during carbon calculation: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<TransportCarbonMetrics> calculateEmissionsAsync(TransportRequest transportRequest) {
+        CompletableFuture<TransportCarbonMetrics> call = new CompletableFuture<>();
+        CompletableFuture<TransportCarbonMetrics> existing = inFlight.putIfAbsent(transportRequest, call);
+        if (existing != null) {
+            collapsedCalls.increment();
+            // A copy, so a caller applying a timeout or cancelling does not affect the others
+            return existing.copy();
+        }
+        
+        outboundCalls.increment();
+        CompletableFuture<TransportCarbonMetrics> outbound;
+        try {
+            outbound = delegate.calculateEmissionsAsync(transportRequest);
+        } catch (RuntimeException e) {
+            outbound = CompletableFuture.failedFuture(e);
+        }
+        outbound.whenComplete((metrics, error) -> {
+            inFlight.remove(transportRequest, call);
+            if (error != null) {
+                call.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+            } else {
+                call.complete(metrics);
+            }
+        });
+        return call.copy();
+    }
+    
+    // Batches are already deduplicated by the adapter and keep its bounded fan-out
+    @Override
+    public List<Try<TransportCarbonMetrics>> calculateEmissionsBatch(List<TransportRequest> transportRequests) {
+        return delegate.calculateEmissionsBatch(transportRequests);
+    }
+    
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
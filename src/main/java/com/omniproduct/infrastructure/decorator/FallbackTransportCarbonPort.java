@@ -0,0 +1,93 @@
+package com.omniproduct.infrastructure.decorator;
+
+import com.omniproduct.domain.exception.TransportCarbonException;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import io.micrometer.core.instrument.Counter;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Answers from the fallback port when the primary one fails or is slower than the timeout
+public class FallbackTransportCarbonPort implements TransportCarbonPort {
+    
+    private static final Logger log = LoggerFactory.getLogger(FallbackTransportCarbonPort.class);
+    
+    private final TransportCarbonPort primary;
+    private final TransportCarbonPort fallback;
+    private final Duration timeout;
+    private final Counter fallbacks;
+    
+    public FallbackTransportCarbonPort(TransportCarbonPort primary, TransportCarbonPort fallback,
+                                       Duration timeout, Counter fallbacks) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.timeout = timeout;
+        this.fallbacks = fallbacks;
+    }
+    
+    @Override
+    public TransportCarbonMetrics calculateEmissions(TransportRequest transportRequest) {
+        try {
+            return primary.calculateEmissionsAsync(transportRequest).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return fallBack(transportRequest, e instanceof ExecutionException ? e.getCause() : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransportCarbonException("Interrupted during carbon calculation", e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<TransportCarbonMetrics> calculateEmissionsAsync(TransportRequest transportRequest) {
+        return primary.calculateEmissionsAsync(transportRequest)
+            .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+            .exceptionally(e -> fallBack(transportRequest, e));
+    }
+    
+    // The timeout bounds the whole batch: past it the primary batch is cancelled and every line
+    // is answered offline, otherwise only the lines the primary failed on are
+    @Override
+    public List<Try<TransportCarbonMetrics>> calculateEmissionsBatch(List<TransportRequest> transportRequests) {
+        FutureTask<List<Try<TransportCarbonMetrics>>> batch =
+            new FutureTask<>(() -> primary.calculateEmissionsBatch(transportRequests));
+        Thread.ofVirtual().start(batch);
+        List<Try<TransportCarbonMetrics>> results;
+        try {
+            results = batch.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Interrupts the primary, which cancels the calls it still has in flight
+            batch.cancel(true);
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            return transportRequests.stream()
+                .map(request -> Try.of(() -> fallBack(request, cause)))
+                .toList();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.cancel(true);
+            throw new TransportCarbonException("Interrupted during carbon calculation", e);
+        }
+        List<Try<TransportCarbonMetrics>> recovered = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            TransportRequest request = transportRequests.get(i);
+            recovered.add(results.get(i).recoverWith(e -> Try.of(() -> fallBack(request, e))));
+        }
+        return recovered;
+    }
+    
+    private TransportCarbonMetrics fallBack(TransportRequest transportRequest, Throwable cause) {
+        fallbacks.increment();
+        log.warn("Falling back to offline carbon calculation for {}: {}", transportRequest, cause.toString());
+        return fallback.calculateEmissions(transportRequest);
+    }
+}
@@ -0,0 +1,40 @@
+package com.omniproduct.infrastructure.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Keeps the latencies of the most recent calls in a ring buffer
+public class LatencyTracker {
+    
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    
+    public LatencyTracker(int capacity) {
+        this.samples = new AtomicLongArray(capacity);
+    }
+    
+    public void record(long latencyNanos) {
+        long index = recorded.getAndIncrement();
+        samples.set((int) (index % samples.length()), latencyNanos);
+    }
+    
+    public long count() {
+        return Math.min(recorded.get(), samples.length());
+    }
+    
+    // Nearest-rank percentile of the retained samples, or -1 when there are none
+    public long percentile(double percentile) {
+        int size = (int) count();
+        if (size == 0) {
+            return -1;
+        }
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * size);
+        return sorted[Math.clamp(rank - 1, 0, size - 1)];
+    }
+}
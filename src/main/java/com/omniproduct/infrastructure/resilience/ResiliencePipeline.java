@@ -0,0 +1,181 @@
+package com.omniproduct.infrastructure.resilience;
+
+import com.omniproduct.config.TransportCarbonProperties;
+import com.omniproduct.domain.exception.TransportCarbonException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Guards calls to a remote service with, from the outside in: a circuit breaker,
+// a deadline shared by all attempts of a call, a concurrency bulkhead per attempt,
+// and a hedged second attempt once the first is slower than a recent latency percentile.
+// Attempts receive their remaining time budget so the transport can give up on time.
+public class ResiliencePipeline {
+    
+    private static final int LATENCY_SAMPLES = 256;
+    
+    private final String name;
+    private final boolean enabled;
+    private final Duration callTimeout;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final TransportCarbonProperties.Hedging hedging;
+    private final LatencyTracker latencies = new LatencyTracker(LATENCY_SAMPLES);
+    
+    public ResiliencePipeline(String name, TransportCarbonProperties.Resilience properties) {
+        this.name = name;
+        this.enabled = properties.enabled();
+        this.callTimeout = properties.callTimeout();
+        this.circuitBreaker = CircuitBreaker.of(name, toConfig(properties.circuitBreaker()));
+        this.bulkhead = new Semaphore(properties.bulkhead().maxConcurrentCalls());
+        this.hedging = properties.hedging();
+    }
+    
+    private ResiliencePipeline(String name, Duration callTimeout) {
+        this.name = name;
+        this.enabled = false;
+        this.callTimeout = callTimeout;
+        this.circuitBreaker = CircuitBreaker.ofDefaults(name);
+        this.bulkhead = null;
+        this.hedging = null;
+    }
+    
+    // Only applies the timeout to each call
+    public static ResiliencePipeline passThrough(String name, Duration callTimeout) {
+        return new ResiliencePipeline(name, callTimeout);
+    }
+    
+    public <T> CompletableFuture<T> execute(Function<Duration, CompletableFuture<T>> attempt) {
+        if (!enabled) {
+            return attempt.apply(callTimeout);
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(
+                new TransportCarbonException("Circuit breaker of " + name + " is " + circuitBreaker.getState()));
+        }
+        
+        Call<T> call = new Call<>(attempt, System.nanoTime());
+        if (!call.launch()) {
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(
+                new TransportCarbonException("Too many concurrent calls to " + name));
+        }
+        CompletableFuture.delayedExecutor(callTimeout.toNanos(), TimeUnit.NANOSECONDS)
+            .execute(() -> call.result.completeExceptionally(deadlineExceeded(new TimeoutException())));
+        scheduleHedge(call);
+        // The outcome is recorded before the caller sees it
+        return call.result.whenComplete((value, error) -> call.finish(error));
+    }
+    
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    private void scheduleHedge(Call<?> call) {
+        if (!hedging.enabled() || latencies.count() < hedging.minimumSamples()) {
+            return;
+        }
+        long delayNanos = Math.max(latencies.percentile(hedging.latencyPercentile()), hedging.minimumDelay().toNanos());
+        if (delayNanos >= callTimeout.toNanos()) {
+            return;
+        }
+        Executor delayed = CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS);
+        delayed.execute(() -> {
+            if (!call.result.isDone()) {
+                call.launch();
+            }
+        });
+    }
+    
+    private static CircuitBreakerConfig toConfig(TransportCarbonProperties.CircuitBreaker properties) {
+        return CircuitBreakerConfig.custom()
+            .failureRateThreshold(properties.failureRateThreshold())
+            .slowCallDurationThreshold(properties.slowCallDurationThreshold())
+            .slowCallRateThreshold(properties.slowCallRateThreshold())
+            .slidingWindowSize(properties.slidingWindowSize())
+            .minimumNumberOfCalls(properties.minimumNumberOfCalls())
+            .waitDurationInOpenState(properties.waitDurationInOpenState())
+            .permittedNumberOfCallsInHalfOpenState(properties.permittedCallsInHalfOpenState())
+            // A rejected request says nothing about the health of the service
+            .recordException(e -> !(e instanceof WebClientResponseException response
+                && response.getStatusCode().is4xxClientError()))
+            .build();
+    }
+    
+    private TransportCarbonException deadlineExceeded(Throwable cause) {
+        return new TransportCarbonException(
+            "Call to " + name + " exceeded its deadline of " + callTimeout.toMillis() + " ms", cause);
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    // One logical call: the first successful attempt wins, the call fails when every launched attempt failed
+    private class Call<T> {
+        private final Function<Duration, CompletableFuture<T>> attempt;
+        private final long startNanos;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        
+        Call(Function<Duration, CompletableFuture<T>> attempt, long startNanos) {
+            this.attempt = attempt;
+            this.startNanos = startNanos;
+        }
+        
+        boolean launch() {
+            if (!bulkhead.tryAcquire()) {
+                return false;
+            }
+            pending.incrementAndGet();
+            Duration remaining = callTimeout.minusNanos(System.nanoTime() - startNanos);
+            CompletableFuture<T> future;
+            try {
+                future = attempt.apply(remaining);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            attempts.add(future);
+            // A hedge launched while the call completed was missed by finish()
+            if (result.isDone()) {
+                future.cancel(true);
+            }
+            future.whenComplete((value, error) -> {
+                bulkhead.release();
+                if (error == null) {
+                    result.complete(value);
+                } else if (pending.decrementAndGet() == 0) {
+                    Throwable cause = unwrap(error);
+                    // The transport timed out on the remaining budget it was given
+                    result.completeExceptionally(cause instanceof TimeoutException ? deadlineExceeded(cause) : cause);
+                }
+            });
+            return true;
+        }
+        
+        void finish(Throwable error) {
+            long elapsed = System.nanoTime() - startNanos;
+            if (error == null) {
+                latencies.record(elapsed);
+                circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            } else {
+                circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, unwrap(error));
+            }
+            // Losing or timed-out attempts are cancelled, which aborts their HTTP exchange
+            attempts.forEach(future -> future.cancel(true));
+        }
+    }
+}
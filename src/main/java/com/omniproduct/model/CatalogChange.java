@@ -0,0 +1,66 @@
+package com.omniproduct.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// One row of the catalog outbox. The id is the offset consumers resume from
+@Entity
+@Table(name = "catalog_changes", indexes = @Index(name = "idx_catalog_changes_occurred_at", columnList = "occurred_at"))
+public class CatalogChange {
+
+    public enum EntityType { PRODUCT, SUPPLIER }
+
+    // BULK_DELETE stands for all the products one statement deleted, STOCK for a reservation or release
+    public enum Operation { UPSERT, DELETE, BULK_DELETE, STOCK }
+
+    // Allocated by JDBC batch (hibernate.jdbc.batch_size), so bulk writes cost one sequence call per batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "catalog_changes_seq")
+    @SequenceGenerator(name = "catalog_changes_seq", sequenceName = "catalog_changes_seq", allocationSize = 100)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntityType entityType;
+
+    // Absent for bulk deletions
+    @Column(name = "entity_id")
+    private String entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Operation operation;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    // The entity as its GET endpoint serves it; the deleted ids for bulk deletions, the product id
+    // and its new stock for stock changes, absent for other deletions
+    @Lob
+    @JsonRawValue
+    private String payload;
+
+    public CatalogChange() {}
+
+    public CatalogChange(EntityType entityType, String entityId, Operation operation,
+                         Instant occurredAt, String payload) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.occurredAt = occurredAt;
+        this.payload = payload;
+    }
+
+    public Long getId() { return id; }
+
+    public EntityType getEntityType() { return entityType; }
+
+    public String getEntityId() { return entityId; }
+
+    public Operation getOperation() { return operation; }
+
+    public Instant getOccurredAt() { return occurredAt; }
+
+    public String getPayload() { return payload; }
+}
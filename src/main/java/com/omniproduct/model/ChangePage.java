@@ -0,0 +1,9 @@
+package com.omniproduct.model;
+
+import java.util.List;
+
+// nextOffset is the offset to resume from; it stays put when there was nothing new
+public record ChangePage(
+    List<CatalogChange> items,
+    long nextOffset
+) {}
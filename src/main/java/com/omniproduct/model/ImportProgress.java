@@ -0,0 +1,25 @@
+package com.omniproduct.model;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ImportProgress(
+    String jobId,
+    String file,
+    String format,
+    State state,
+    long totalBytes,
+    long bytesRead,
+    long recordsRead,
+    long saved,
+    long failed,
+    List<String> errors,
+    Instant startedAt,
+    Instant finishedAt
+) {
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    public double percentRead() {
+        return totalBytes == 0 ? 100.0 : 100.0 * bytesRead / totalBytes;
+    }
+}
@@ -0,0 +1,21 @@
+package com.omniproduct.model;
+
+import java.util.List;
+
+// Prices after discounts; unpriced lists the requested ids that do not exist or have no base price
+public record PriceQuote(
+    List<Line> lines,
+    List<String> unpriced,
+    double net,
+    double tax,
+    double total
+) {
+    public record Line(
+        String productId,
+        int quantity,
+        double unitPrice,
+        double net,
+        double tax,
+        double total
+    ) {}
+}
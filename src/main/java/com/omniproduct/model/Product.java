@@ -1,15 +1,26 @@
 package com.omniproduct.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import java.util.List;
 import java.util.Map;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_supplier_id", columnList = "supplier_id"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
+// Updates only write the columns that changed
+@DynamicUpdate
 public class Product {
     
     @Id
     private String id;
+
+    // Optimistic lock, and the ETag of the product. Stock reservations and releases bump it too,
+    // so a replacement carrying the stock read before them is refused instead of undoing them
+    @Version
+    private Long version;
     
     @Column(nullable = false)
     private String name;
@@ -20,17 +31,20 @@ public class Product {
     @Embedded
     private Price price;
     
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product-discounts")
     @ElementCollection
     @CollectionTable(name = "product_discounts", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "discount")
     private List<String> discounts;
     
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product-images")
     @ElementCollection
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @MapKeyColumn(name = "image_key")
     @Column(name = "image_detail")
     private Map<String, String> images; // Simplified to Map<String, String> for JPA
     
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product-suppliersRegions")
     @ElementCollection
     @CollectionTable(name = "product_suppliers", joinColumns = @JoinColumn(name = "product_id"))
     @MapKeyColumn(name = "region")
@@ -97,6 +111,9 @@ public class Product {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
     
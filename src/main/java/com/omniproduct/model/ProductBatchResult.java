@@ -0,0 +1,15 @@
+package com.omniproduct.model;
+
+import java.util.List;
+
+// Outcome of a bulk save: only the rejected items are listed, by their position in the request
+public record ProductBatchResult(
+    int saved,
+    List<Failure> failures
+) {
+    public record Failure(
+        int index,
+        String id,
+        String error
+    ) {}
+}
@@ -0,0 +1,9 @@
+package com.omniproduct.model;
+
+import java.util.List;
+
+// Outcome of a bulk delete: the ids or slugs that matched no product are listed, in request order
+public record ProductDeleteResult(
+    int deleted,
+    List<String> notFound
+) {}
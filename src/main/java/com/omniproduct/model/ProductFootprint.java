@@ -0,0 +1,71 @@
+package com.omniproduct.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "product_footprints",
+       indexes = @Index(name = "idx_product_footprints_product_id", columnList = "product_id"),
+       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "region", "transport_mode"}))
+public class ProductFootprint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private String productId;
+    
+    @Column(nullable = false)
+    private String region;
+    
+    @Column(name = "transport_mode", nullable = false)
+    private String transportMode;
+    
+    private Double distanceKm;
+    private Double weightKg;
+    private Double co2EquivalentKg;
+    private Double co2DirectKg;
+    
+    // Hash of the product inputs (weight, warehouse, regions, modes) the row was computed from
+    @Column(nullable = false)
+    private String fingerprint;
+    
+    private Instant computedAt;
+    
+    public ProductFootprint() {}
+    
+    public ProductFootprint(String productId, String region, String transportMode, Double distanceKm,
+                            Double weightKg, Double co2EquivalentKg, Double co2DirectKg,
+                            String fingerprint, Instant computedAt) {
+        this.productId = productId;
+        this.region = region;
+        this.transportMode = transportMode;
+        this.distanceKm = distanceKm;
+        this.weightKg = weightKg;
+        this.co2EquivalentKg = co2EquivalentKg;
+        this.co2DirectKg = co2DirectKg;
+        this.fingerprint = fingerprint;
+        this.computedAt = computedAt;
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getProductId() { return productId; }
+    
+    public String getRegion() { return region; }
+    
+    public String getTransportMode() { return transportMode; }
+    
+    public Double getDistanceKm() { return distanceKm; }
+    
+    public Double getWeightKg() { return weightKg; }
+    
+    public Double getCo2EquivalentKg() { return co2EquivalentKg; }
+    
+    public Double getCo2DirectKg() { return co2DirectKg; }
+    
+    public String getFingerprint() { return fingerprint; }
+    
+    public Instant getComputedAt() { return computedAt; }
+}
@@ -0,0 +1,8 @@
+package com.omniproduct.model;
+
+import java.util.List;
+
+public record ProductPage(
+    List<Product> items,
+    String nextCursor
+) {}
@@ -0,0 +1,9 @@
+package com.omniproduct.model;
+
+import java.util.Map;
+
+public record ProductSuppliers(
+    String productId,
+    Supplier supplier,
+    Map<String, Product.Supplier> suppliersRegions
+) {}
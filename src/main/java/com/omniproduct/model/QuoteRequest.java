@@ -0,0 +1,15 @@
+package com.omniproduct.model;
+
+import java.util.List;
+
+// codes are the promotion codes the customer entered: a product's promotion code discounts apply
+// only to the quotes that list them
+public record QuoteRequest(
+    List<Line> lines,
+    List<String> codes
+) {
+    public record Line(
+        String productId,
+        int quantity
+    ) {}
+}
@@ -0,0 +1,5 @@
+package com.omniproduct.model;
+
+public record StockChange(
+    int quantity
+) {}
@@ -0,0 +1,7 @@
+package com.omniproduct.model;
+
+// Stock left after a reservation or release; for hot products it includes changes not yet flushed
+public record StockLevel(
+    String productId,
+    int stock
+) {}
@@ -1,10 +1,14 @@
 package com.omniproduct.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 @Entity
 @Table(name = "suppliers")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "supplier")
 public class Supplier {
     @Id
     private String id;
@@ -15,6 +19,9 @@ public class Supplier {
     private String country;
     private String region;
     
+    // Not serialized: a supplier can own a whole catalog, and each product points back to its supplier.
+    // Not cached either: Hibernate does not invalidate an inverse collection when a product changes supplier
+    @JsonIgnore
     @OneToMany(mappedBy = "supplier", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Product> products;
     
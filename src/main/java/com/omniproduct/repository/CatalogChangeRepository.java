@@ -0,0 +1,33 @@
+package com.omniproduct.repository;
+
+import com.omniproduct.model.CatalogChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    List<CatalogChange> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(long after, long upTo, Limit limit);
+
+    @Query("select max(c.id) from CatalogChange c")
+    Optional<Long> findMaxId();
+
+    @Query("select min(c.id) from CatalogChange c")
+    Optional<Long> findMinId();
+
+    // The newest change is never purgeable, however old
+    @Query("select max(c.id) from CatalogChange c where c.occurredAt < :cutoff"
+        + " and c.id < (select max(n.id) from CatalogChange n)")
+    Optional<Long> findPurgeableUpTo(Instant cutoff);
+
+    @Modifying
+    @Query("delete from CatalogChange c where c.id <= :id")
+    int deleteUpTo(long id);
+}
@@ -0,0 +1,24 @@
+package com.omniproduct.repository;
+
+import com.omniproduct.model.ProductFootprint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductFootprintRepository extends JpaRepository<ProductFootprint, Long> {
+    
+    List<ProductFootprint> findByProductIdOrderByRegionAscTransportModeAsc(String productId);
+    
+    // [productId, fingerprint] pairs
+    @Query("select distinct f.productId, f.fingerprint from ProductFootprint f where f.productId in :productIds")
+    List<Object[]> findFingerprints(Collection<String> productIds);
+    
+    @Modifying
+    @Query("delete from ProductFootprint f where f.productId in :productIds")
+    int deleteByProductIds(Collection<String> productIds);
+}
@@ -1,17 +1,67 @@
 package com.omniproduct.repository;
 
 import com.omniproduct.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, String> {
+public interface ProductRepository extends JpaRepository<Product, String>, ProductStockUpdates {
     
     Optional<Product> findBySlug(String slug);
     
     boolean existsBySlug(String slug);
     
     void deleteBySlug(String slug);
+
+    @Query("select p.id from Product p where p.slug = :slug")
+    Optional<String> findIdBySlug(String slug);
+
+    // [slug, id] pairs
+    @Query("select p.slug, p.id from Product p where p.slug in :slugs")
+    List<Object[]> findIdsBySlugIn(Collection<String> slugs);
+
+    @Query("select p.slug from Product p")
+    Stream<String> streamAllSlugs();
+
+    @Query("select p.id from Product p where p.id in :ids")
+    List<String> findExistingIds(Collection<String> ids);
+
+    @Query("select p.id from Product p where p.supplier.id = :supplierId")
+    List<String> findIdsBySupplierId(String supplierId);
+
+    // Bulk deletes skip the persistence context; Hibernate first empties the element-collection
+    // tables for the matched rows and evicts the product cache regions
+    @Modifying
+    @Query("delete from Product p where p.id in :ids")
+    int deleteAllByIdIn(Collection<String> ids);
+
+    @Modifying
+    @Query("delete from Product p where p.supplier.id = :supplierId")
+    int deleteAllBySupplierId(String supplierId);
+
+    List<Product> findAllByOrderByIdAsc(Limit limit);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    @Query("select p from Product p left join fetch p.supplier left join fetch p.suppliersRegions where p.id = :id")
+    Optional<Product> findWithSuppliersById(String id);
+
+    // [id, version, base, tax, taxRate] rows
+    @Query("select p.id, p.version, p.price.base, p.price.tax, p.price.taxRate from Product p where p.id in :ids")
+    List<Object[]> findPricesByIdIn(Collection<String> ids);
+
+    // [id, discount] pairs
+    @Query("select p.id, d from Product p join p.discounts d where p.id in :ids")
+    List<Object[]> findDiscountsByIdIn(Collection<String> ids);
+
+    @Query("select coalesce(p.stock, 0) from Product p where p.id = :id")
+    Optional<Integer> findStockById(String id);
 }
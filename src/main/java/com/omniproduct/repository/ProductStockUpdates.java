@@ -0,0 +1,10 @@
+package com.omniproduct.repository;
+
+// Stock updates of ProductRepository that keep the second-level cache of the other products
+public interface ProductStockUpdates {
+
+    // Conditional decrement: no row is updated when the stock does not cover the quantity
+    int decrementStock(String id, int quantity);
+
+    int incrementStock(String id, int quantity);
+}
@@ -0,0 +1,60 @@
+package com.omniproduct.repository;
+
+import com.omniproduct.model.Product;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// A JPQL bulk update makes Hibernate evict the whole product region and its collection regions,
+// so every reservation emptied the product cache. These updates are native statements with an
+// empty synchronized query space, which evicts nothing, and only the updated product is evicted.
+// No cached query reads the stock, so the query cache needs no invalidation either.
+// Both bump the version, so the ETag changes and a replacement based on the version read before
+// the update is refused.
+class ProductStockUpdatesImpl implements ProductStockUpdates {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int decrementStock(String id, int quantity) {
+        return update("update products set stock = stock - :quantity, version = version + 1"
+            + " where id = :id and stock >= :quantity", id, quantity);
+    }
+
+    @Override
+    public int incrementStock(String id, int quantity) {
+        return update("update products set stock = coalesce(stock, 0) + :quantity, version = version + 1"
+            + " where id = :id", id, quantity);
+    }
+
+    private int update(String sql, String id, int quantity) {
+        int updated = entityManager.createNativeQuery(sql)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("")
+            .setParameter("id", id)
+            .setParameter("quantity", quantity)
+            .executeUpdate();
+        if (updated > 0) {
+            evict(id);
+        }
+        return updated;
+    }
+
+    // Evicted again once the transaction ends, since a reader in between may cache the previous row
+    private void evict(String id) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Product.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Product.class, id);
+                }
+            });
+        }
+    }
+}
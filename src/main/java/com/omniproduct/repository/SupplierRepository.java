@@ -1,7 +1,12 @@
 package com.omniproduct.repository;
 
 import com.omniproduct.model.Supplier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,7 +14,23 @@ import java.util.Optional;
 
 @Repository
 public interface SupplierRepository extends JpaRepository<Supplier, String> {
+    // Cached results are dropped by Hibernate whenever the suppliers table is written
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "supplier-queries")
+    })
     List<Supplier> findByCountry(String country);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "supplier-queries")
+    })
     List<Supplier> findByRegion(String region);
+
     Optional<Supplier> findByName(String name);
+
+    // Does not cascade to the products, they have to be deleted first
+    @Modifying
+    @Query("delete from Supplier s where s.id = :id")
+    int deleteSupplierById(String id);
 }
@@ -0,0 +1,424 @@
+package com.omniproduct.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.config.ChangeFeedProperties;
+import com.omniproduct.exception.ChangeFeedExpiredException;
+import com.omniproduct.model.CatalogChange;
+import com.omniproduct.model.ChangePage;
+import com.omniproduct.repository.CatalogChangeRepository;
+import com.omniproduct.service.event.AfterCommit;
+import com.omniproduct.service.event.ProductSavedEvent;
+import com.omniproduct.service.event.ProductStockChangedEvent;
+import com.omniproduct.service.event.ProductsDeletedEvent;
+import com.omniproduct.service.event.SupplierDeletedEvent;
+import com.omniproduct.service.event.SupplierSavedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Transactional outbox for the catalog. Saves and deletions of products and suppliers, and stock
+// changes, append a row to catalog_changes in the transaction that makes them, so the feed never
+// shows a change that was rolled back nor misses one that committed. Consumers read it from an
+// offset, as long-polled pages or as a Server-Sent Events stream. A single dispatcher thread reads
+// what a commit made visible; each stream writes on its own virtual thread, so a slow client only
+// holds back itself.
+//
+// Offsets are handed out in order but transactions commit in any order: readers stop below the
+// first offset of the oldest transaction still open, so a late commit is never skipped. This
+// bookkeeping is per JVM, which matches the single-instance deployment.
+@Service
+public class ChangeFeedService {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private final CatalogChangeRepository changeRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ChangeFeedProperties properties;
+
+    // Taking an offset and registering it as open is one step under this lock, and persist may
+    // fetch the next block of the sequence from the database meanwhile
+    private final ReentrantLock offsetLock = new ReentrantLock();
+    // First offset of each open transaction that appended changes; guarded by offsetLock
+    private final NavigableSet<Long> openOffsets = new TreeSet<>();
+    private long lastOffset;
+    private volatile long purgedThrough;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher =
+        Executors.newSingleThreadExecutor(Thread.ofVirtual().name("change-feed-dispatcher").factory());
+    private final ExecutorService senders =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-feed-sender-", 0).factory());
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+
+    public ChangeFeedService(CatalogChangeRepository changeRepository, EntityManager entityManager,
+                             ObjectMapper objectMapper, ChangeFeedProperties properties) {
+        this.changeRepository = changeRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    // Purge keeps the newest change, so the oldest one left also tells a restarted service how
+    // far the feed was purged
+    @PostConstruct
+    void loadOffsets() {
+        lastOffset = changeRepository.findMaxId().orElse(0L);
+        purgedThrough = changeRepository.findMinId().map(id -> id - 1).orElse(0L);
+    }
+
+    @EventListener
+    public void onProductSaved(ProductSavedEvent event) {
+        append(new CatalogChange(CatalogChange.EntityType.PRODUCT, event.product().getId(),
+            CatalogChange.Operation.UPSERT, Instant.now(), toJson(event.product())));
+    }
+
+    // One row however many products went, so a bulk delete stays a constant number of statements
+    @EventListener
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        if (event.productIds().size() == 1) {
+            append(new CatalogChange(CatalogChange.EntityType.PRODUCT, event.productIds().iterator().next(),
+                CatalogChange.Operation.DELETE, Instant.now(), null));
+        } else {
+            append(new CatalogChange(CatalogChange.EntityType.PRODUCT, null,
+                CatalogChange.Operation.BULK_DELETE, Instant.now(), toJson(event.productIds())));
+        }
+    }
+
+    // Hot products are counted in memory and publish outside any transaction; their stock reaches
+    // the feed when the flush writes it
+    @EventListener
+    public void onStockChanged(ProductStockChangedEvent event) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            append(new CatalogChange(CatalogChange.EntityType.PRODUCT, event.productId(),
+                CatalogChange.Operation.STOCK, Instant.now(), toJson(event)));
+        }
+    }
+
+    @EventListener
+    public void onSupplierSaved(SupplierSavedEvent event) {
+        append(new CatalogChange(CatalogChange.EntityType.SUPPLIER, event.supplier().getId(),
+            CatalogChange.Operation.UPSERT, Instant.now(), toJson(event.supplier())));
+    }
+
+    @EventListener
+    public void onSupplierDeleted(SupplierDeletedEvent event) {
+        append(new CatalogChange(CatalogChange.EntityType.SUPPLIER, event.supplierId(),
+            CatalogChange.Operation.DELETE, Instant.now(), null));
+    }
+
+    // Without an offset the page starts at the oldest change still retained
+    public ChangePage read(Long after, int limit) {
+        long from = checkRetained(after);
+        long upTo = visibleUpTo();
+        if (upTo <= from) {
+            return new ChangePage(List.of(), from);
+        }
+        List<CatalogChange> items = changeRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+            from, upTo, Limit.of(Math.clamp(limit, 1, properties.maxPageSize())));
+        return new ChangePage(items, items.isEmpty() ? from : items.getLast().getId());
+    }
+
+    // Answers at once when there are changes after the offset, otherwise at the first commit
+    // that adds some, or with an empty page once the timeout has elapsed
+    public DeferredResult<ChangePage> poll(Long after, int limit, long timeoutMillis) {
+        ChangePage page = read(after, limit);
+        long timeout = Math.min(timeoutMillis, properties.maxPollTimeout().toMillis());
+        if (!page.items().isEmpty() || timeout <= 0) {
+            DeferredResult<ChangePage> result = new DeferredResult<>();
+            result.setResult(page);
+            return result;
+        }
+        DeferredResult<ChangePage> result = new DeferredResult<>(timeout, page);
+        PollSubscriber subscriber = new PollSubscriber(page.nextOffset(), limit, result);
+        result.onCompletion(() -> subscribers.remove(subscriber));
+        subscribe(subscriber);
+        return result;
+    }
+
+    // Each change is an event named after its entity type, with the offset as event id, so a
+    // reconnecting EventSource resumes through its Last-Event-ID header
+    public SseEmitter stream(Long after) {
+        long from = checkRetained(after);
+        SseEmitter emitter = new SseEmitter(properties.streamTimeout().toMillis());
+        StreamSubscriber subscriber = new StreamSubscriber(from, emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribe(subscriber);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${omniproduct.changes.heartbeat-interval:15s}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    @Scheduled(fixedDelayString = "${omniproduct.changes.purge-interval:1h}")
+    @Transactional
+    public void purge() {
+        changeRepository.findPurgeableUpTo(Instant.now().minus(properties.retention()))
+            .ifPresent(upTo -> {
+                int purged = changeRepository.deleteUpTo(upTo);
+                AfterCommit.run(() -> purgedThrough = Math.max(purgedThrough, upTo));
+                log.info("Purged {} catalog changes up to offset {}", purged, upTo);
+            });
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private void append(CatalogChange change) {
+        offsetLock.lock();
+        try {
+            entityManager.persist(change);
+            lastOffset = change.getId();
+            holdUntilCompletion(change.getId());
+        } finally {
+            offsetLock.unlock();
+        }
+    }
+
+    // Registers the first offset of the current transaction until it commits or rolls back
+    private void holdUntilCompletion(long offset) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(offsetLock)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(offsetLock, offset);
+        openOffsets.add(offset);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(offsetLock);
+                offsetLock.lock();
+                try {
+                    openOffsets.remove(offset);
+                } finally {
+                    offsetLock.unlock();
+                }
+                if (status == STATUS_COMMITTED) {
+                    requestDispatch();
+                }
+            }
+        });
+    }
+
+    // Every offset up to this one belongs to a transaction that has completed
+    private long visibleUpTo() {
+        offsetLock.lock();
+        try {
+            return openOffsets.isEmpty() ? lastOffset : openOffsets.first() - 1;
+        } finally {
+            offsetLock.unlock();
+        }
+    }
+
+    private long checkRetained(Long after) {
+        long purged = purgedThrough;
+        if (after == null) {
+            return purged;
+        }
+        if (after < purged) {
+            throw new ChangeFeedExpiredException(
+                "Changes up to offset " + purged + " have been purged, resync and restart from a later offset");
+        }
+        return after;
+    }
+
+    private void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+        requestDispatch();
+    }
+
+    // Coalesces the commits that happen while a dispatch is queued or running into one more round
+    private void requestDispatch() {
+        if (!subscribers.isEmpty() && dispatchPending.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    // Subscribers at the same offset share one query. Each gets at most one page per round,
+    // so a consumer catching up on a long backlog does not hold back the others. A stream still
+    // sending its previous page is skipped; it asks for another round once it is done
+    private void dispatch() {
+        dispatchPending.set(false);
+        Map<Long, ChangePage> pages = new HashMap<>();
+        boolean backlog = false;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.busy()) {
+                continue;
+            }
+            try {
+                ChangePage page = pages.computeIfAbsent(subscriber.position(),
+                    position -> read(position, properties.maxPageSize()));
+                if (page.items().isEmpty()) {
+                    continue;
+                }
+                backlog |= page.items().size() == properties.maxPageSize();
+                if (!subscriber.deliver(page)) {
+                    subscribers.remove(subscriber);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Dropping change feed subscriber at offset {}: {}", subscriber.position(), e.getMessage());
+                subscribers.remove(subscriber);
+                subscriber.fail(e);
+            }
+        }
+        if (backlog) {
+            requestDispatch();
+        }
+    }
+
+    private String toJson(Object entity) {
+        try {
+            return objectMapper.writeValueAsString(entity);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Subscriber {
+        long position();
+
+        // False once the subscriber needs nothing more
+        boolean deliver(ChangePage page);
+
+        default boolean busy() { return false; }
+
+        default void heartbeat() {}
+
+        void fail(RuntimeException error);
+
+        void close();
+    }
+
+    private static final class PollSubscriber implements Subscriber {
+        private final long position;
+        private final int limit;
+        private final DeferredResult<ChangePage> result;
+
+        PollSubscriber(long position, int limit, DeferredResult<ChangePage> result) {
+            this.position = position;
+            this.limit = limit;
+            this.result = result;
+        }
+
+        @Override
+        public long position() { return position; }
+
+        @Override
+        public boolean deliver(ChangePage page) {
+            List<CatalogChange> items = page.items().subList(0, Math.min(Math.max(limit, 1), page.items().size()));
+            result.setResult(new ChangePage(items, items.getLast().getId()));
+            return false;
+        }
+
+        @Override
+        public void fail(RuntimeException error) { result.setErrorResult(error); }
+
+        @Override
+        public void close() { result.setResult(new ChangePage(List.of(), position)); }
+    }
+
+    // Sends on a virtual thread of its own, one page or heartbeat at a time; the dispatcher hands
+    // it a page only when it is idle
+    private final class StreamSubscriber implements Subscriber {
+        private volatile long position;
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        StreamSubscriber(long position, SseEmitter emitter) {
+            this.position = position;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public long position() { return position; }
+
+        @Override
+        public boolean busy() { return sending.get(); }
+
+        @Override
+        public boolean deliver(ChangePage page) {
+            send(() -> {
+                for (CatalogChange change : page.items()) {
+                    emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getId()))
+                        .name(change.getEntityType().name().toLowerCase(Locale.ROOT))
+                        .data(change, MediaType.APPLICATION_JSON));
+                    position = change.getId();
+                }
+            });
+            return true;
+        }
+
+        // Skipped while a page is being sent, which keeps the connection alive anyway
+        @Override
+        public void heartbeat() {
+            send(() -> emitter.send(SseEmitter.event().comment("keep-alive")));
+        }
+
+        @Override
+        public void fail(RuntimeException error) { emitter.completeWithError(error); }
+
+        @Override
+        public void close() { emitter.complete(); }
+
+        private void send(Transmission transmission) {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(() -> {
+                    try {
+                        transmission.run();
+                    } catch (IOException | RuntimeException e) {
+                        subscribers.remove(this);
+                        emitter.completeWithError(e);
+                    } finally {
+                        sending.set(false);
+                        requestDispatch();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                sending.set(false);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Transmission {
+        void run() throws IOException;
+    }
+}
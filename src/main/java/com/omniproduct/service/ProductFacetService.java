@@ -0,0 +1,113 @@
+package com.omniproduct.service;
+
+import com.omniproduct.model.Product;
+import com.omniproduct.service.event.AfterCommit;
+import com.omniproduct.service.event.ProductSavedEvent;
+import com.omniproduct.service.event.ProductStockChangedEvent;
+import com.omniproduct.service.event.ProductsDeletedEvent;
+import com.omniproduct.service.index.ProductFacetIndex;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps the columnar facet snapshot in step with the catalog, like the search index.
+// Facets and catalog aggregates are both answered from it, without reading the database.
+@Service
+public class ProductFacetService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1000;
+    public static final int DEFAULT_HISTOGRAM_BUCKETS = 20;
+    public static final int MAX_HISTOGRAM_BUCKETS = 1000;
+
+    private final ProductService productService;
+    private final ProductStockService stockService;
+    private final ProductFacetIndex index = new ProductFacetIndex();
+    // Hot products reserve in memory and write their stock behind, so a flush's event or a saved
+    // row can carry a database stock that trails the counter: the snapshot takes the counter's.
+    // Reading it and writing the snapshot under one lock keeps an older read from landing last.
+    private final ReentrantLock stockLock = new ReentrantLock();
+
+    public ProductFacetService(ProductService productService, ProductStockService stockService) {
+        this.productService = productService;
+        this.stockService = stockService;
+    }
+
+    public ProductFacetIndex.Result filter(ProductFacetIndex.Query query, int limit) {
+        return index.filter(query, Math.clamp(limit, 0, MAX_LIMIT));
+    }
+
+    public List<ProductFacetIndex.WarehouseInventory> inventoryByWarehouse() {
+        return index.inventoryByWarehouse();
+    }
+
+    public List<ProductFacetIndex.RegionStock> stockByRegion() {
+        return index.stockByRegion();
+    }
+
+    public ProductFacetIndex.Histogram kilosHistogram(int buckets) {
+        return index.kilosHistogram(Math.clamp(buckets, 1, MAX_HISTOGRAM_BUCKETS));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        productService.forEachProduct(product -> index.put(rowOf(product)));
+    }
+
+    // A save that replaces the stock restarts a hot counter from it, so only the other saves
+    // take the counter's stock
+    @EventListener
+    public void onProductSaved(ProductSavedEvent event) {
+        ProductFacetIndex.Row row = rowOf(event.product());
+        if (event.stockReplaced()) {
+            AfterCommit.run(() -> index.put(row));
+            return;
+        }
+        AfterCommit.run(() -> {
+            stockLock.lock();
+            try {
+                OptionalInt live = stockService.liveStock(row.productId());
+                index.put(live.isPresent() ? withStock(row, live.getAsInt()) : row);
+            } finally {
+                stockLock.unlock();
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        stockLock.lock();
+        try {
+            index.updateStock(event.productId(), stockService.liveStock(event.productId()).orElse(event.stock()));
+        } finally {
+            stockLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        event.productIds().forEach(index::remove);
+    }
+
+    private static ProductFacetIndex.Row rowOf(Product product) {
+        return new ProductFacetIndex.Row(
+            product.getId(),
+            product.getPrice() == null ? null : product.getPrice().getBase(),
+            product.getStock(),
+            product.getQuantity(),
+            product.getKilos(),
+            product.getWarehouse() == null ? null : product.getWarehouse().getLocation(),
+            product.getSuppliersRegions() == null ? List.of() : List.copyOf(product.getSuppliersRegions().keySet())
+        );
+    }
+
+    private static ProductFacetIndex.Row withStock(ProductFacetIndex.Row row, int stock) {
+        return new ProductFacetIndex.Row(row.productId(), row.price(), stock, row.quantity(), row.kilos(),
+            row.warehouse(), row.regions());
+    }
+}
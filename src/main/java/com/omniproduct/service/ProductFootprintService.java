@@ -0,0 +1,224 @@
+package com.omniproduct.service;
+
+import com.omniproduct.config.FootprintProperties;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import com.omniproduct.model.Product;
+import com.omniproduct.model.ProductFootprint;
+import com.omniproduct.repository.ProductFootprintRepository;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.service.event.ProductSavedEvent;
+import com.omniproduct.service.event.ProductsDeletedEvent;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Maintains the product_footprints table: one row per product, sales region and transport mode.
+// Saves only mark products as pending; a scheduled job recomputes them in batches, and only
+// when the inputs of the footprint (weight, warehouse, supplier regions) have changed.
+@Service
+public class ProductFootprintService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFootprintService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductFootprintRepository footprintRepository;
+    private final TransportCarbonPort transportCarbonPort;
+    private final RouteDistanceTable routeDistances;
+    private final FootprintProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public ProductFootprintService(ProductRepository productRepository,
+                                   ProductFootprintRepository footprintRepository,
+                                   TransportCarbonPort transportCarbonPort,
+                                   RouteDistanceTable routeDistances,
+                                   FootprintProperties properties,
+                                   PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.footprintRepository = footprintRepository;
+        this.transportCarbonPort = transportCarbonPort;
+        this.routeDistances = routeDistances;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSaved(ProductSavedEvent event) {
+        if (properties.enabled()) {
+            pending.add(event.product().getId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        if (properties.enabled()) {
+            pending.addAll(event.productIds());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<List<ProductFootprint>> findByProductId(String productId) {
+        List<ProductFootprint> footprints = footprintRepository.findByProductIdOrderByRegionAscTransportModeAsc(productId);
+        if (footprints.isEmpty() && !productRepository.existsById(productId)) {
+            return Optional.empty();
+        }
+        return Optional.of(footprints);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // One run at a time, scheduled or called directly; it holds the lock while it waits on
+    // ImpactCO2 and the database
+    @Scheduled(fixedDelayString = "${omniproduct.footprint.refresh-interval:5s}")
+    public void refreshPending() {
+        refreshLock.lock();
+        List<String> retries = new ArrayList<>();
+        try {
+            while (!pending.isEmpty()) {
+                List<String> batch = new ArrayList<>(properties.batchSize());
+                Iterator<String> it = pending.iterator();
+                while (it.hasNext() && batch.size() < properties.batchSize()) {
+                    batch.add(it.next());
+                    it.remove();
+                }
+                retries.addAll(refresh(batch));
+            }
+        } finally {
+            // Retried on the next run rather than in this loop, which would spin during an outage
+            pending.addAll(retries);
+            refreshLock.unlock();
+        }
+    }
+
+    // A product is rewritten only when every one of its lines was calculated; the others keep
+    // their current rows and are returned to be retried
+    private Set<String> refresh(List<String> productIds) {
+        List<FootprintInput> changed = transactionTemplate.execute(status -> changedInputs(productIds));
+
+        List<TransportRequest> requests = new ArrayList<>();
+        List<Line> lines = new ArrayList<>();
+        for (FootprintInput input : changed) {
+            for (String region : input.regions()) {
+                Optional<Double> distance = routeDistances.distanceKm(input.warehouse(), region);
+                if (distance.isEmpty()) {
+                    continue;
+                }
+                for (String mode : properties.transportModes()) {
+                    requests.add(new TransportRequest(mode, distance.get(), input.weightKg()));
+                    lines.add(new Line(input, region));
+                }
+            }
+        }
+
+        List<Try<TransportCarbonMetrics>> results = transportCarbonPort.calculateEmissionsBatch(requests);
+        Set<String> failed = new HashSet<>();
+        int failures = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isFailure()) {
+                failures++;
+                failed.add(lines.get(i).input().productId());
+            }
+        }
+        if (failures > 0) {
+            log.warn("{} of {} footprint lines could not be calculated, {} products will be retried",
+                failures, results.size(), failed.size());
+        }
+
+        Instant now = Instant.now();
+        List<ProductFootprint> rows = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Line line = lines.get(i);
+            if (failed.contains(line.input().productId())) {
+                continue;
+            }
+            TransportCarbonMetrics metrics = results.get(i).get();
+            rows.add(new ProductFootprint(line.input().productId(), line.region(), metrics.transportMode(),
+                metrics.distance(), metrics.weight(), metrics.co2EquivalentKg(), metrics.co2DirectKg(),
+                line.input().fingerprint(), now));
+        }
+        List<String> rewritten = changed.stream()
+            .map(FootprintInput::productId)
+            .filter(productId -> !failed.contains(productId))
+            .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            footprintRepository.deleteByProductIds(rewritten);
+            footprintRepository.saveAll(rows);
+        });
+        return failed;
+    }
+
+    // Products whose footprint is stale; deleted products come back with no regions so their rows are dropped
+    private List<FootprintInput> changedInputs(List<String> productIds) {
+        Map<String, FootprintInput> inputs = new HashMap<>();
+        for (String productId : productIds) {
+            inputs.put(productId, new FootprintInput(productId, null, null, List.of(), ""));
+        }
+        for (Product product : productRepository.findAllById(productIds)) {
+            inputs.put(product.getId(), inputOf(product));
+        }
+
+        Map<String, String> stored = new HashMap<>();
+        for (Object[] row : footprintRepository.findFingerprints(productIds)) {
+            stored.put((String) row[0], (String) row[1]);
+        }
+
+        return inputs.values().stream()
+            .filter(input -> !input.fingerprint().equals(stored.getOrDefault(input.productId(), "")))
+            .toList();
+    }
+
+    private FootprintInput inputOf(Product product) {
+        Double weight = product.getKilos();
+        String warehouse = product.getWarehouse() == null ? null : product.getWarehouse().getLocation();
+        List<String> regions = product.getSuppliersRegions() == null || weight == null || weight <= 0
+            ? List.of()
+            : product.getSuppliersRegions().keySet().stream().sorted().toList();
+        if (regions.isEmpty()) {
+            return new FootprintInput(product.getId(), weight, warehouse, regions, "");
+        }
+        String fingerprint = sha256(weight + "|" + warehouse + "|" + regions + "|" + properties.transportModes());
+        return new FootprintInput(product.getId(), weight, warehouse, regions, fingerprint);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record FootprintInput(
+        String productId,
+        Double weightKg,
+        String warehouse,
+        List<String> regions,
+        String fingerprint
+    ) {}
+
+    private record Line(
+        FootprintInput input,
+        String region
+    ) {}
+}
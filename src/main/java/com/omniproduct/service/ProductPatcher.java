@@ -0,0 +1,144 @@
+package com.omniproduct.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.exception.InvalidProductPatchException;
+import com.omniproduct.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Applies a JSON merge patch (RFC 7386) to a managed product. Members left out of the patch are
+// not touched, null removes a value, objects are merged member by member and arrays are replaced.
+// Collections are changed in place rather than replaced, so Hibernate writes only the rows that
+// differ: appended discounts are inserted, image and region entries are updated by key.
+@Component
+public class ProductPatcher {
+
+    private final ObjectMapper objectMapper;
+
+    public ProductPatcher(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public void apply(Product product, JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new InvalidProductPatchException("A product patch must be a JSON object");
+        }
+        for (Map.Entry<String, JsonNode> member : patch.properties()) {
+            String field = member.getKey();
+            JsonNode value = member.getValue();
+            switch (field) {
+                case "id" -> checkUnchanged(field, value, product.getId());
+                case "version" -> {
+                    // Compared with the current version by ProductService
+                }
+                case "name" -> product.setName(requiredText(field, value));
+                case "slug" -> product.setSlug(requiredText(field, value));
+                case "kilos" -> product.setKilos(convert(field, value, Double.class));
+                case "volume" -> product.setVolume(convert(field, value, String.class));
+                case "quantity" -> product.setQuantity(convert(field, value, Integer.class));
+                case "stock" -> product.setStock(convert(field, value, Integer.class));
+                case "price" -> product.setPrice(merge(field, value, product.getPrice(), Product.Price.class));
+                case "warehouse" -> product.setWarehouse(merge(field, value, product.getWarehouse(), Product.Warehouse.class));
+                case "discounts" -> patchDiscounts(product, value);
+                case "images" -> patchMap(field, value, product::getImages, product::setImages,
+                    (current, entry) -> requiredText(field + "." + entry.getKey(), entry.getValue()));
+                case "suppliersRegions" -> patchMap(field, value, product::getSuppliersRegions, product::setSuppliersRegions,
+                    (current, entry) -> merge(field + "." + entry.getKey(), entry.getValue(),
+                        current.get(entry.getKey()), Product.Supplier.class));
+                default -> throw new InvalidProductPatchException("Field cannot be patched: " + field);
+            }
+        }
+    }
+
+    private static void checkUnchanged(String field, JsonNode value, Object current) {
+        if (!value.isNull() && !value.asText().equals(String.valueOf(current))) {
+            throw new InvalidProductPatchException("Field cannot be changed: " + field);
+        }
+    }
+
+    // Discounts are a bag: pure appends become inserts, any other change rewrites the list
+    private void patchDiscounts(Product product, JsonNode value) {
+        List<String> discounts = value.isNull() ? List.of() : Arrays.asList(convert("discounts", value, String[].class));
+        List<String> current = product.getDiscounts();
+        if (current == null) {
+            product.setDiscounts(new ArrayList<>(discounts));
+        } else if (!current.equals(discounts)) {
+            if (discounts.size() >= current.size() && discounts.subList(0, current.size()).equals(current)) {
+                current.addAll(discounts.subList(current.size(), discounts.size()));
+            } else {
+                current.clear();
+                current.addAll(discounts);
+            }
+        }
+    }
+
+    private <V> void patchMap(String field, JsonNode value,
+                              Supplier<Map<String, V>> getter,
+                              Consumer<Map<String, V>> setter,
+                              BiFunction<Map<String, V>, Map.Entry<String, JsonNode>, V> merger) {
+        Map<String, V> current = getter.get();
+        if (current == null) {
+            current = new HashMap<>();
+            setter.accept(current);
+        }
+        if (value.isNull()) {
+            current.clear();
+            return;
+        }
+        if (!value.isObject()) {
+            throw new InvalidProductPatchException("Field must be an object: " + field);
+        }
+        for (Map.Entry<String, JsonNode> entry : value.properties()) {
+            if (entry.getValue().isNull()) {
+                current.remove(entry.getKey());
+            } else {
+                V merged = merger.apply(current, entry);
+                if (!objectMapper.valueToTree(merged).equals(objectMapper.valueToTree(current.get(entry.getKey())))) {
+                    current.put(entry.getKey(), merged);
+                }
+            }
+        }
+    }
+
+    // Embeddables are merged into a copy, so Hibernate compares the new value with its snapshot
+    private <T> T merge(String field, JsonNode value, T current, Class<T> type) {
+        if (value.isNull()) {
+            return null;
+        }
+        if (!value.isObject()) {
+            throw new InvalidProductPatchException("Field must be an object: " + field);
+        }
+        try {
+            T target = current == null ? type.getDeclaredConstructor().newInstance() : copy(current, type);
+            return objectMapper.readerForUpdating(target).readValue(value);
+        } catch (IOException | ReflectiveOperationException e) {
+            throw new InvalidProductPatchException("Invalid value for " + field + ": " + e.getMessage());
+        }
+    }
+
+    private <T> T copy(T value, Class<T> type) {
+        return objectMapper.convertValue(value, type);
+    }
+
+    private <T> T convert(String field, JsonNode value, Class<T> type) {
+        try {
+            return value.isNull() ? null : objectMapper.treeToValue(value, type);
+        } catch (JsonProcessingException e) {
+            throw new InvalidProductPatchException("Invalid value for " + field + ": " + e.getOriginalMessage());
+        }
+    }
+
+    private static String requiredText(String field, JsonNode value) {
+        if (!value.isTextual() || value.asText().isBlank()) {
+            throw new InvalidProductPatchException("Field must be a non-blank string: " + field);
+        }
+        return value.asText();
+    }
+}
@@ -0,0 +1,131 @@
+package com.omniproduct.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.omniproduct.config.PricingProperties;
+import com.omniproduct.exception.InvalidQuoteException;
+import com.omniproduct.exception.ProductBatchTooLargeException;
+import com.omniproduct.model.PriceQuote;
+import com.omniproduct.model.QuoteRequest;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.service.event.ProductSavedEvent;
+import com.omniproduct.service.event.ProductsDeletedEvent;
+import com.omniproduct.service.pricing.CompiledPrice;
+import com.omniproduct.service.pricing.DiscountRule;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Prices carts server side. One IN query reads the price columns and version of every product in
+// the cart; discount rules are compiled once per product version and kept in a bounded cache, so
+// their strings are only read and parsed again for products that changed since.
+@Service
+public class ProductPricingService {
+
+    private final ProductRepository productRepository;
+    private final PricingProperties properties;
+    private final Cache<String, CompiledPrice> compiledPrices;
+
+    public ProductPricingService(ProductRepository productRepository, PricingProperties properties) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        this.compiledPrices = Caffeine.newBuilder()
+            .maximumSize(properties.cacheMaximumSize())
+            .build();
+    }
+
+    @Transactional(readOnly = true)
+    public PriceQuote quote(QuoteRequest request) {
+        List<QuoteRequest.Line> lines = request.lines() == null ? List.of() : request.lines();
+        if (lines.size() > properties.maxQuoteLines()) {
+            throw new ProductBatchTooLargeException(
+                "At most " + properties.maxQuoteLines() + " lines per quote, got " + lines.size());
+        }
+        for (QuoteRequest.Line line : lines) {
+            if (line.productId() == null || line.quantity() <= 0) {
+                throw new InvalidQuoteException("Each line needs a product id and a positive quantity: " + line);
+            }
+        }
+        Set<String> codes = request.codes() == null ? Set.of() : request.codes().stream()
+            .filter(Objects::nonNull)
+            .map(DiscountRule::code)
+            .collect(Collectors.toSet());
+        Map<String, CompiledPrice> prices = compiledPrices(lines.stream().map(QuoteRequest.Line::productId).toList());
+
+        List<PriceQuote.Line> quoted = new ArrayList<>(lines.size());
+        Set<String> unpriced = new LinkedHashSet<>();
+        long totalNet = 0;
+        long totalTax = 0;
+        for (QuoteRequest.Line line : lines) {
+            CompiledPrice price = prices.get(line.productId());
+            if (price == null) {
+                unpriced.add(line.productId());
+                continue;
+            }
+            long unitCents = price.unitNetCents(line.quantity(), codes);
+            long netCents = unitCents * line.quantity();
+            long taxCents = price.taxCents(netCents);
+            totalNet += netCents;
+            totalTax += taxCents;
+            quoted.add(new PriceQuote.Line(line.productId(), line.quantity(), amount(unitCents),
+                amount(netCents), amount(taxCents), amount(netCents + taxCents)));
+        }
+        return new PriceQuote(quoted, List.copyOf(unpriced), amount(totalNet), amount(totalTax),
+            amount(totalNet + totalTax));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSaved(ProductSavedEvent event) {
+        compiledPrices.invalidate(event.product().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        compiledPrices.invalidateAll(event.productIds());
+    }
+
+    // Cached entries are used only when their version is still the current one, which also covers
+    // updates made behind the service's back (not a delete and re-insert under the same id, which
+    // restarts the version). Products without a base price are left out.
+    private Map<String, CompiledPrice> compiledPrices(Collection<String> productIds) {
+        Set<String> ids = new HashSet<>(productIds);
+        Map<String, CompiledPrice> prices = new HashMap<>(ids.size());
+        Map<String, Object[]> stale = new HashMap<>();
+        for (Object[] row : productRepository.findPricesByIdIn(ids)) {
+            String id = (String) row[0];
+            long version = row[1] == null ? -1 : (Long) row[1];
+            if (row[2] == null) {
+                continue;
+            }
+            CompiledPrice cached = compiledPrices.getIfPresent(id);
+            if (cached != null && cached.version() == version) {
+                prices.put(id, cached);
+            } else {
+                stale.put(id, row);
+            }
+        }
+        if (stale.isEmpty()) {
+            return prices;
+        }
+
+        Map<String, List<DiscountRule>> rules = new HashMap<>();
+        for (Object[] row : productRepository.findDiscountsByIdIn(stale.keySet())) {
+            DiscountRule.parse((String) row[1])
+                .ifPresent(rule -> rules.computeIfAbsent((String) row[0], id -> new ArrayList<>()).add(rule));
+        }
+        stale.forEach((id, row) -> {
+            CompiledPrice price = CompiledPrice.compile(row[1] == null ? -1 : (Long) row[1],
+                (Double) row[2], (Double) row[3], (Double) row[4], rules.getOrDefault(id, List.of()));
+            compiledPrices.put(id, price);
+            prices.put(id, price);
+        });
+        return prices;
+    }
+
+    private static double amount(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.omniproduct.service;
+
+import com.omniproduct.model.Product;
+import com.omniproduct.service.event.AfterCommit;
+import com.omniproduct.service.event.ProductSavedEvent;
+import com.omniproduct.service.event.ProductsDeletedEvent;
+import com.omniproduct.service.index.ProductSearchIndex;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Keeps the search index in step with the catalog: loaded once at startup, then updated from
+// the product events of every save and delete
+@Service
+public class ProductSearchService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final ProductService productService;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    public ProductSearchService(ProductService productService) {
+        this.productService = productService;
+    }
+
+    public ProductSearchIndex.Result search(String query, int limit) {
+        return index.search(query, Math.clamp(limit, 1, MAX_LIMIT));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        productService.forEachProduct(product -> index.put(documentOf(product)));
+    }
+
+    // The document is read while the saving transaction still holds the product's collections,
+    // and only enters the index once the transaction has committed
+    @EventListener
+    public void onProductSaved(ProductSavedEvent event) {
+        ProductSearchIndex.Document document = documentOf(event.product());
+        AfterCommit.run(() -> index.put(document));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        event.productIds().forEach(index::remove);
+    }
+
+    private static ProductSearchIndex.Document documentOf(Product product) {
+        List<String> discounts = product.getDiscounts() == null ? List.of() : new ArrayList<>(product.getDiscounts());
+        List<String> suppliers = new ArrayList<>();
+        if (product.getSupplier() != null) {
+            suppliers.add(product.getSupplier().getName());
+        }
+        if (product.getSuppliersRegions() != null) {
+            product.getSuppliersRegions().values().forEach(supplier -> suppliers.add(supplier.getName()));
+        }
+        suppliers.removeIf(Objects::isNull);
+        return new ProductSearchIndex.Document(product.getId(), product.getName(), product.getSlug(), discounts, suppliers);
+    }
+}
@@ -1,33 +1,447 @@
 package com.omniproduct.service;
 
+import com.omniproduct.exception.ProductBatchTooLargeException;
+import com.omniproduct.exception.ProductSlugConflictException;
+import com.omniproduct.exception.ProductVersionConflictException;
 import com.omniproduct.model.Product;
+import com.omniproduct.model.ProductBatchResult;
+import com.omniproduct.model.ProductDeleteResult;
+import com.omniproduct.model.ProductPage;
 import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.service.event.ProductSavedEvent;
+import com.omniproduct.service.event.ProductsDeletedEvent;
+import com.omniproduct.service.index.SlugIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 10_000;
+    // One transaction per chunk; each chunk is sent as JDBC batches of hibernate.jdbc.batch_size
+    private static final int BATCH_CHUNK_SIZE = 500;
+
     private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SlugIndex slugIndex;
+    private final ProductPatcher productPatcher;
+    private final TransactionTemplate transactionTemplate;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, EntityManager entityManager,
+                          ApplicationEventPublisher eventPublisher, SlugIndex slugIndex,
+                          ProductPatcher productPatcher, PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.slugIndex = slugIndex;
+        this.productPatcher = productPatcher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    @Transactional(readOnly = true)
     public List<Product> findAll() {
-        return productRepository.findAll();
+        return initializeCollections(productRepository.findAll());
+    }
+
+    // Keyset pagination: the cursor is the id of the last product of the previous page
+    @Transactional(readOnly = true)
+    public ProductPage findPage(String after, int size) {
+        Limit limit = Limit.of(Math.clamp(size, 1, MAX_PAGE_SIZE));
+        List<Product> items = (after == null || after.isBlank())
+                ? productRepository.findAllByOrderByIdAsc(limit)
+                : productRepository.findByIdGreaterThanOrderByIdAsc(after, limit);
+        String nextCursor = items.size() < limit.max() ? null : items.get(items.size() - 1).getId();
+        return new ProductPage(initializeCollections(items), nextCursor);
     }
 
+    // Visits every product in id order one page at a time, clearing the persistence
+    // context between pages so memory stays bounded by the page size
+    @Transactional(readOnly = true)
+    public void forEachProduct(Consumer<Product> action) {
+        String cursor = null;
+        do {
+            ProductPage page = findPage(cursor, MAX_PAGE_SIZE);
+            page.items().forEach(action);
+            entityManager.clear();
+            cursor = page.nextCursor();
+        } while (cursor != null);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Product> findById(String id) {
-        return productRepository.findById(id);
+        return productRepository.findById(id).map(this::initializeCollections);
+    }
+
+    // Slugs the filter has never seen are answered without a query; cached ids are re-checked
+    // because the near-cache may lag behind writes made outside this service
+    @Transactional(readOnly = true)
+    public Optional<Product> findBySlug(String slug) {
+        if (!slugIndex.mightExist(slug)) {
+            return Optional.empty();
+        }
+        Optional<Product> cached = slugIndex.cachedId(slug)
+                .flatMap(productRepository::findById)
+                .filter(product -> slug.equals(product.getSlug()));
+        if (cached.isPresent()) {
+            return cached.map(this::initializeCollections);
+        }
+        slugIndex.evict(slug);
+        Optional<Product> product = productRepository.findBySlug(slug);
+        product.ifPresent(p -> slugIndex.cache(p.getId(), slug));
+        return product.map(this::initializeCollections);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildSlugIndex() {
+        try (Stream<String> slugs = productRepository.streamAllSlugs()) {
+            slugIndex.rebuild(productRepository.count(), slugs.iterator());
+        }
     }
 
+    // A product without a version replaces the current one whatever its version; with a version
+    // the save is refused when someone else has updated the product since that version.
+    // The current product is the one merge would read anyway: once it is in the persistence
+    // context, often from the second-level cache, merge does not read it again.
+    @Transactional
     public Product save(Product product) {
-        return productRepository.save(product);
+        if (product.getVersion() == null && product.getId() != null) {
+            Product current = entityManager.find(Product.class, product.getId());
+            if (current != null) {
+                product.setVersion(current.getVersion());
+            }
+        }
+        return write(product);
+    }
+
+    // PUT: replaces an existing product, conditionally when an expected version is given
+    @Transactional
+    public Optional<Product> replace(Product product, Long expectedVersion) {
+        Product current = entityManager.find(Product.class, product.getId());
+        if (current == null) {
+            return Optional.empty();
+        }
+        product.setVersion(expectedVersion != null ? expectedVersion : current.getVersion());
+        return Optional.of(write(product));
+    }
+
+    private Product write(Product product) {
+        checkSlugIsFree(product.getId(), product.getSlug());
+        Product saved;
+        try {
+            saved = productRepository.saveAndFlush(product);
+        } catch (OptimisticLockingFailureException e) {
+            throw versionConflict(product.getId());
+        }
+        slugIndex.add(saved.getSlug());
+        eventPublisher.publishEvent(new ProductSavedEvent(saved, true));
+        return saved;
+    }
+
+    // Field-level update: a single read of the product, often served by the second-level cache,
+    // then an UPDATE of the changed columns guarded by the version. Collections the patch does
+    // not mention are neither loaded for writing nor rewritten. The expected version comes from
+    // If-Match or from the patch itself; without one the patch applies to the current version.
+    @Transactional
+    public Optional<Product> patch(String id, JsonNode changes, Long expectedVersion) {
+        Optional<Product> found = productRepository.findById(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Product product = found.get();
+        Long expected = expectedVersion != null ? expectedVersion : versionOf(changes);
+        if (expected != null && !expected.equals(product.getVersion())) {
+            throw versionConflict(id);
+        }
+        // Checked before the patch is applied, so the slug query does not flush a conflicting slug
+        JsonNode slug = changes == null ? null : changes.get("slug");
+        if (slug != null && slug.isTextual() && !slug.asText().equals(product.getSlug())) {
+            checkSlugIsFree(id, slug.asText());
+        }
+        productPatcher.apply(product, changes);
+        try {
+            entityManager.flush();
+        } catch (OptimisticLockException e) {
+            throw versionConflict(id);
+        }
+        slugIndex.add(product.getSlug());
+        eventPublisher.publishEvent(new ProductSavedEvent(product, changes != null && changes.has("stock")));
+        return Optional.of(initializeCollections(product));
+    }
+
+    // Bulk variant of save. Invalid items are rejected up front; the rest are written in chunks,
+    // new products with a plain persist instead of the select-then-insert of a merge. When a chunk
+    // fails it is replayed item by item, so one bad product only costs its own rejection.
+    public ProductBatchResult saveAll(List<Product> products) {
+        if (products.size() > MAX_BATCH_SIZE) {
+            throw new ProductBatchTooLargeException(
+                    "At most " + MAX_BATCH_SIZE + " products per batch, got " + products.size());
+        }
+        List<ProductBatchResult.Failure> failures = new ArrayList<>();
+        List<BatchItem> valid = validateBatch(products, failures);
+
+        int saved = 0;
+        for (int from = 0; from < valid.size(); from += BATCH_CHUNK_SIZE) {
+            List<BatchItem> chunk = valid.subList(from, Math.min(valid.size(), from + BATCH_CHUNK_SIZE));
+            try {
+                transactionTemplate.executeWithoutResult(status -> persistChunk(chunk));
+                saved += chunk.size();
+            } catch (RuntimeException chunkFailure) {
+                for (BatchItem item : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> persistChunk(List.of(item)));
+                        saved++;
+                    } catch (RuntimeException e) {
+                        failures.add(item.failure(rootMessage(e)));
+                    }
+                }
+            }
+        }
+        failures.sort(Comparator.comparingInt(ProductBatchResult.Failure::index));
+        return new ProductBatchResult(saved, failures);
+    }
+
+    // One delete per table instead of loading the product to remove it; false when there was none
+    @Transactional
+    public boolean deleteById(String id) {
+        if (productRepository.deleteAllByIdIn(List.of(id)) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new ProductsDeletedEvent(List.of(id)));
+        return true;
+    }
+
+    // Ids and slugs are resolved with one IN query per chunk, then the matching products are
+    // deleted with one statement per table and chunk, all in a single transaction
+    @Transactional
+    public ProductDeleteResult deleteAll(List<String> ids, List<String> slugs) {
+        List<String> requestedIds = ids == null ? List.of() : ids;
+        List<String> requestedSlugs = slugs == null ? List.of() : slugs;
+        if (requestedIds.size() + requestedSlugs.size() > MAX_BATCH_SIZE) {
+            throw new ProductBatchTooLargeException("At most " + MAX_BATCH_SIZE + " products per delete, got "
+                    + (requestedIds.size() + requestedSlugs.size()));
+        }
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : chunks(requestedIds)) {
+            existing.addAll(productRepository.findExistingIds(chunk));
+        }
+        Map<String, String> idsBySlug = new HashMap<>();
+        for (List<String> chunk : chunks(requestedSlugs)) {
+            for (Object[] row : productRepository.findIdsBySlugIn(chunk)) {
+                idsBySlug.put((String) row[0], (String) row[1]);
+            }
+        }
+
+        Set<String> toDelete = new LinkedHashSet<>();
+        List<String> notFound = new ArrayList<>();
+        for (String id : requestedIds) {
+            if (existing.contains(id)) {
+                toDelete.add(id);
+            } else {
+                notFound.add(id);
+            }
+        }
+        for (String slug : requestedSlugs) {
+            String id = idsBySlug.get(slug);
+            if (id != null) {
+                toDelete.add(id);
+            } else {
+                notFound.add(slug);
+            }
+        }
+
+        int deleted = 0;
+        for (List<String> chunk : chunks(List.copyOf(toDelete))) {
+            deleted += productRepository.deleteAllByIdIn(chunk);
+        }
+        if (!toDelete.isEmpty()) {
+            eventPublisher.publishEvent(new ProductsDeletedEvent(List.copyOf(toDelete)));
+        }
+        return new ProductDeleteResult(deleted, notFound);
+    }
+
+    // Deletes by supplier in a constant number of statements however many products it has;
+    // only the ids are read, for the listeners of the deletion event
+    @Transactional
+    public int deleteBySupplierId(String supplierId) {
+        List<String> ids = productRepository.findIdsBySupplierId(supplierId);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = productRepository.deleteAllBySupplierId(supplierId);
+        eventPublisher.publishEvent(new ProductsDeletedEvent(ids));
+        return deleted;
+    }
+
+    // Field checks first, then slugs owned by other products in the database, then slugs
+    // repeated within the batch, so a slug taken in the database is not claimed by a rejected item
+    private List<BatchItem> validateBatch(List<Product> products, List<ProductBatchResult.Failure> failures) {
+        List<BatchItem> items = new ArrayList<>(products.size());
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < products.size(); i++) {
+            BatchItem item = new BatchItem(i, products.get(i));
+            String error = validate(item.product());
+            if (error == null && !ids.add(item.product().getId())) {
+                error = "Duplicate product id in batch: " + item.product().getId();
+            }
+            if (error != null) {
+                failures.add(item.failure(error));
+            } else {
+                items.add(item);
+            }
+        }
+
+        // One query per chunk for the slugs the filter cannot rule out
+        List<String> candidates = items.stream()
+                .map(item -> item.product().getSlug())
+                .filter(slugIndex::mightExist)
+                .toList();
+        Map<String, String> owners = new HashMap<>();
+        for (int from = 0; from < candidates.size(); from += BATCH_CHUNK_SIZE) {
+            for (Object[] row : productRepository.findIdsBySlugIn(
+                    candidates.subList(from, Math.min(candidates.size(), from + BATCH_CHUNK_SIZE)))) {
+                owners.put((String) row[0], (String) row[1]);
+            }
+        }
+
+        List<BatchItem> valid = new ArrayList<>(items.size());
+        Set<String> slugs = new HashSet<>();
+        for (BatchItem item : items) {
+            String slug = item.product().getSlug();
+            String owner = owners.get(slug);
+            if (owner != null && !owner.equals(item.product().getId())) {
+                failures.add(item.failure("Slug already used by another product: " + slug));
+            } else if (!slugs.add(slug)) {
+                failures.add(item.failure("Duplicate slug in batch: " + slug));
+            } else {
+                valid.add(item);
+            }
+        }
+        return valid;
+    }
+
+    private static String validate(Product product) {
+        if (product == null) {
+            return "Product is missing";
+        }
+        if (product.getId() == null || product.getId().isBlank()) {
+            return "Product id is missing";
+        }
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "Product name is missing";
+        }
+        if (product.getSlug() == null || product.getSlug().isBlank()) {
+            return "Product slug is missing";
+        }
+        return null;
+    }
+
+    // Existing products are loaded with one IN query, so their merge needs no further select.
+    // A batch is an upsert: items take the current version, so an older export can be re-imported.
+    // A re-imported product only replaces the stock when it carries a different one.
+    private void persistChunk(List<BatchItem> chunk) {
+        Map<String, Long> versions = new HashMap<>();
+        Map<String, Integer> stocks = new HashMap<>();
+        productRepository.findAllById(chunk.stream().map(item -> item.product().getId()).toList())
+                .forEach(product -> {
+                    versions.put(product.getId(), product.getVersion());
+                    stocks.put(product.getId(), product.getStock());
+                });
+        List<ProductSavedEvent> events = new ArrayList<>(chunk.size());
+        for (BatchItem item : chunk) {
+            Product product = item.product();
+            product.setVersion(versions.get(product.getId()));
+            if (versions.containsKey(product.getId())) {
+                boolean stockReplaced = !Objects.equals(stocks.get(product.getId()), product.getStock());
+                events.add(new ProductSavedEvent(entityManager.merge(product), stockReplaced));
+            } else {
+                entityManager.persist(product);
+                events.add(new ProductSavedEvent(product, true));
+            }
+            slugIndex.add(product.getSlug());
+        }
+        entityManager.flush();
+        // After the flush, so listeners see the new versions; their own writes go in a second flush
+        events.forEach(eventPublisher::publishEvent);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += BATCH_CHUNK_SIZE) {
+            chunks.add(items.subList(from, Math.min(items.size(), from + BATCH_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static String rootMessage(Throwable throwable) {
+        Throwable root = throwable;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static Long versionOf(JsonNode changes) {
+        JsonNode version = changes == null ? null : changes.get("version");
+        return version != null && version.canConvertToLong() ? version.asLong() : null;
+    }
+
+    private static ProductVersionConflictException versionConflict(String id) {
+        return new ProductVersionConflictException("Product " + id + " was updated by someone else, reload it and retry");
+    }
+
+    private void checkSlugIsFree(String id, String slug) {
+        if (slug == null || !slugIndex.mightExist(slug)) {
+            return;
+        }
+        Optional<String> owner = slugIndex.cachedId(slug);
+        if (owner.isEmpty() || !owner.get().equals(id)) {
+            owner = productRepository.findIdBySlug(slug);
+        }
+        if (owner.isPresent() && !owner.get().equals(id)) {
+            throw new ProductSlugConflictException("Slug already used by another product: " + slug);
+        }
+    }
+
+    // Element collections are batch fetched (hibernate.default_batch_fetch_size), so
+    // touching them for a whole page costs one query per collection table, not one per product
+    private List<Product> initializeCollections(List<Product> products) {
+        products.forEach(this::initializeCollections);
+        return products;
+    }
+
+    private Product initializeCollections(Product product) {
+        Hibernate.initialize(product.getDiscounts());
+        Hibernate.initialize(product.getImages());
+        Hibernate.initialize(product.getSuppliersRegions());
+        return product;
     }
 
-    public void deleteById(String id) {
-        productRepository.deleteById(id);
+    private record BatchItem(
+        int index,
+        Product product
+    ) {
+        ProductBatchResult.Failure failure(String error) {
+            return new ProductBatchResult.Failure(index, product == null ? null : product.getId(), error);
+        }
     }
 }
@@ -0,0 +1,217 @@
+package com.omniproduct.service;
+
+import com.omniproduct.config.StockProperties;
+import com.omniproduct.exception.InsufficientStockException;
+import com.omniproduct.exception.InvalidStockQuantityException;
+import com.omniproduct.model.StockLevel;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.service.event.ProductSavedEvent;
+import com.omniproduct.service.event.ProductStockChangedEvent;
+import com.omniproduct.service.event.ProductsDeletedEvent;
+import com.omniproduct.service.stock.StripedStockCounter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Reserves and releases stock without reading the product. Regular products get one conditional
+// UPDATE per call, so the row lock is the only serialization point. Products listed in
+// omniproduct.stock.hot-products are counted in memory on striped counters, and the net change
+// is written behind by a scheduled flush, so a flash sale does not queue on a single row.
+@Service
+public class ProductStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductStockService.class);
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, HotStock> hotStocks = new ConcurrentHashMap<>();
+    // One flush at a time: a caller finding the changes already taken by another flush waits for
+    // it to write them
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public ProductStockService(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                               StockProperties properties, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Optional<StockLevel> findStock(String productId) {
+        Optional<HotStock> hot = hotStock(productId);
+        if (hot.isPresent()) {
+            return Optional.of(new StockLevel(productId, hot.get().counter().sum()));
+        }
+        return productRepository.findStockById(productId).map(stock -> new StockLevel(productId, stock));
+    }
+
+    // The stock of a hot product as its counter has it, ahead of the database by the changes not
+    // flushed yet. Empty for other products and for hot ones whose counter is not loaded, whose
+    // database stock is current.
+    public OptionalInt liveStock(String productId) {
+        HotStock stock = hotStocks.get(productId);
+        return stock == null ? OptionalInt.empty() : OptionalInt.of(stock.counter().sum());
+    }
+
+    // Empty when the product does not exist
+    public Optional<StockLevel> reserve(String productId, int quantity) {
+        checkQuantity(quantity);
+        Optional<HotStock> hot = hotStock(productId);
+        if (hot.isPresent()) {
+            HotStock stock = hot.get();
+            stock.lock().readLock().lock();
+            try {
+                if (!stock.counter().tryTake(quantity)) {
+                    throw new InsufficientStockException("Not enough stock left for product " + productId);
+                }
+                stock.pending().addAndGet(-quantity);
+            } finally {
+                stock.lock().readLock().unlock();
+            }
+            return Optional.of(published(new StockLevel(productId, stock.counter().sum())));
+        }
+        return transactionTemplate.execute(status -> {
+            if (productRepository.decrementStock(productId, quantity) == 0) {
+                if (!productRepository.existsById(productId)) {
+                    return Optional.empty();
+                }
+                throw new InsufficientStockException("Not enough stock left for product " + productId);
+            }
+            return productRepository.findStockById(productId)
+                .map(stock -> published(new StockLevel(productId, stock)));
+        });
+    }
+
+    public Optional<StockLevel> release(String productId, int quantity) {
+        checkQuantity(quantity);
+        Optional<HotStock> hot = hotStock(productId);
+        if (hot.isPresent()) {
+            HotStock stock = hot.get();
+            stock.lock().readLock().lock();
+            try {
+                stock.counter().add(quantity);
+                stock.pending().addAndGet(quantity);
+            } finally {
+                stock.lock().readLock().unlock();
+            }
+            return Optional.of(published(new StockLevel(productId, stock.counter().sum())));
+        }
+        return transactionTemplate.execute(status -> {
+            if (productRepository.incrementStock(productId, quantity) == 0) {
+                return Optional.<StockLevel>empty();
+            }
+            return productRepository.findStockById(productId)
+                .map(stock -> published(new StockLevel(productId, stock)));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${omniproduct.stock.flush-interval:1s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            hotStocks.forEach(this::flush);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // A save that replaces the stock sets it outright: the counter restarts from the saved value
+    // and changes not flushed yet are dropped along with the value they applied to. Other saves
+    // leave the counter and its unflushed changes alone.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSaved(ProductSavedEvent event) {
+        HotStock stock = event.stockReplaced() ? hotStocks.get(event.product().getId()) : null;
+        if (stock != null) {
+            stock.lock().writeLock().lock();
+            try {
+                stock.pending().set(0);
+                Integer saved = event.product().getStock();
+                stock.counter().reset(saved == null ? 0 : saved);
+            } finally {
+                stock.lock().writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        event.productIds().forEach(hotStocks::remove);
+    }
+
+    private void flush(String productId, HotStock stock) {
+        stock.lock().readLock().lock();
+        try {
+            int delta = stock.pending().getAndSet(0);
+            if (delta == 0) {
+                return;
+            }
+            // The written stock is published in the same transaction, so it reaches the change feed
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (productRepository.incrementStock(productId, delta) > 0) {
+                        productRepository.findStockById(productId)
+                            .ifPresent(written -> published(new StockLevel(productId, written)));
+                    }
+                });
+            } catch (RuntimeException e) {
+                stock.pending().addAndGet(delta);
+                log.warn("Could not flush a stock change of {} for product {}", delta, productId, e);
+            }
+        } finally {
+            stock.lock().readLock().unlock();
+        }
+    }
+
+    // Hot counters are loaded from the database on first use
+    private Optional<HotStock> hotStock(String productId) {
+        if (!properties.hotProducts().contains(productId)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(hotStocks.computeIfAbsent(productId, id -> productRepository.findStockById(id)
+            .map(stock -> new HotStock(new StripedStockCounter(stock, properties.stripes()), new AtomicInteger(),
+                new ReentrantReadWriteLock()))
+            .orElse(null)));
+    }
+
+    private StockLevel published(StockLevel level) {
+        eventPublisher.publishEvent(new ProductStockChangedEvent(level.productId(), level.stock()));
+        return level;
+    }
+
+    private static void checkQuantity(int quantity) {
+        if (quantity <= 0) {
+            throw new InvalidStockQuantityException("Quantity must be positive, got " + quantity);
+        }
+    }
+
+    // pending is the net change not yet written: negative for reservations, positive for releases.
+    // Reservations, releases and flushes share lock, a reset takes it exclusively: it never lands
+    // between a change of the counter and of pending, nor between a flush taking pending and its
+    // UPDATE, which the flush holds the lock across
+    private record HotStock(
+        StripedStockCounter counter,
+        AtomicInteger pending,
+        ReentrantReadWriteLock lock
+    ) {}
+}
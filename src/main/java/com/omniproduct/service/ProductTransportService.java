@@ -1,17 +1,27 @@
 package com.omniproduct.service;
 
+import com.omniproduct.config.TransportCarbonProperties;
 import com.omniproduct.domain.model.TransportCarbonMetrics;
 import com.omniproduct.domain.model.TransportRequest;
 import com.omniproduct.domain.port.TransportCarbonPort;
+import com.omniproduct.exception.ProductBatchTooLargeException;
+import io.vavr.control.Try;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class ProductTransportService {
     
     private final TransportCarbonPort transportCarbonPort;
+    private final TransportCarbonProperties properties;
     
-    public ProductTransportService(TransportCarbonPort transportCarbonPort) {
+    public ProductTransportService(TransportCarbonPort transportCarbonPort, TransportCarbonProperties properties) {
         this.transportCarbonPort = transportCarbonPort;
+        this.properties = properties;
     }
     
     public TransportCarbonMetrics calculateShipmentCarbon(
@@ -27,4 +37,46 @@ public class ProductTransportService {
         
         return transportCarbonPort.calculateEmissions(request);
     }
+    
+    public CompletableFuture<TransportCarbonMetrics> calculateShipmentCarbonAsync(
+            String transportMode,
+            Double distanceKm,
+            Double weightKg) {
+        
+        TransportRequest request = new TransportRequest(
+            transportMode,
+            distanceKm,
+            weightKg
+        );
+        
+        return transportCarbonPort.calculateEmissionsAsync(request);
+    }
+    
+    // Invalid lines are reported as failures without being sent to the port
+    public List<Try<TransportCarbonMetrics>> calculateShipmentCarbonBatch(List<ShipmentLine> lines) {
+        if (lines.size() > properties.batch().maxLines()) {
+            throw new ProductBatchTooLargeException(
+                "At most " + properties.batch().maxLines() + " lines per batch, got " + lines.size());
+        }
+        List<Try<TransportRequest>> requests = lines.stream()
+            .map(line -> Try.of(() -> new TransportRequest(line.transportMode(), line.distanceKm(), line.weightKg())))
+            .toList();
+        List<TransportRequest> validRequests = requests.stream()
+            .filter(Try::isSuccess)
+            .map(Try::get)
+            .toList();
+        
+        Iterator<Try<TransportCarbonMetrics>> computed = transportCarbonPort.calculateEmissionsBatch(validRequests).iterator();
+        List<Try<TransportCarbonMetrics>> results = new ArrayList<>(requests.size());
+        for (Try<TransportRequest> request : requests) {
+            results.add(request.isSuccess() ? computed.next() : Try.failure(request.getCause()));
+        }
+        return results;
+    }
+    
+    public record ShipmentLine(
+        String transportMode,
+        Double distanceKm,
+        Double weightKg
+    ) {}
 }
@@ -0,0 +1,72 @@
+package com.omniproduct.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+// Distance from a warehouse to a sales region, used to price the delivery leg of a footprint
+public class RouteDistanceTable {
+
+    private static final String ANY = "*";
+
+    private final Map<String, Double> distances;
+
+    RouteDistanceTable(Map<String, Double> distances) {
+        this.distances = Map.copyOf(distances);
+    }
+
+    // Exact route first, then any warehouse to the region, the warehouse to any region, and the catch-all
+    public Optional<Double> distanceKm(String warehouse, String region) {
+        String w = warehouse == null ? ANY : normalize(warehouse);
+        String r = region == null ? ANY : normalize(region);
+        Double distance = distances.get(key(w, r));
+        if (distance == null) distance = distances.get(key(ANY, r));
+        if (distance == null) distance = distances.get(key(w, ANY));
+        if (distance == null) distance = distances.get(key(ANY, ANY));
+        return Optional.ofNullable(distance);
+    }
+
+    // CSV: warehouse,region,distance_km; '#' starts a comment
+    public static RouteDistanceTable load(Resource resource) {
+        Map<String, Double> distances = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            boolean header = true;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                String[] columns = line.split(",");
+                if (columns.length != 3) {
+                    throw new IllegalStateException("Malformed route distance line in " + resource + ": " + line);
+                }
+                distances.put(key(normalize(columns[0]), normalize(columns[1])), Double.parseDouble(columns[2].strip()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read route distances from " + resource, e);
+        }
+        return new RouteDistanceTable(distances);
+    }
+
+    private static String key(String warehouse, String region) {
+        return warehouse + '|' + region;
+    }
+
+    private static String normalize(String value) {
+        return value.strip().toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,28 +2,42 @@ package com.omniproduct.service;
 
 import com.omniproduct.model.Supplier;
 import com.omniproduct.model.Product;
+import com.omniproduct.model.ProductSuppliers;
 import com.omniproduct.repository.SupplierRepository;
 import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.service.event.SupplierDeletedEvent;
+import com.omniproduct.service.event.SupplierSavedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class SupplierService {
     private final SupplierRepository supplierRepository;
     private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public SupplierService(SupplierRepository supplierRepository, ProductRepository productRepository) {
+    public SupplierService(SupplierRepository supplierRepository, ProductRepository productRepository,
+                           ProductService productService, ApplicationEventPublisher eventPublisher) {
         this.supplierRepository = supplierRepository;
         this.productRepository = productRepository;
+        this.productService = productService;
+        this.eventPublisher = eventPublisher;
     }
     
+    // Writes are transactional so the change feed entry commits with them
+    @Transactional
     public Supplier createSupplier(String id, String name, String contactEmail, String contactPhone,
                                    String country, String region) {
         Supplier supplier = new Supplier(id, name, contactEmail, contactPhone, country, region);
-        return supplierRepository.save(supplier);
+        Supplier saved = supplierRepository.save(supplier);
+        eventPublisher.publishEvent(new SupplierSavedEvent(saved));
+        return saved;
     }
     
     public Optional<Supplier> getSupplier(String id) {
@@ -36,12 +50,20 @@ public class SupplierService {
     
     @Transactional(readOnly = true)
     public List<Supplier> getSuppliersByProduct(String productId) {
-        productRepository.findById(productId)
+        Product product = findProductWithSuppliers(productId);
+        return product.getSupplier() == null ? List.of() : List.of(product.getSupplier());
+    }
+    
+    @Transactional(readOnly = true)
+    public ProductSuppliers getProductSuppliers(String productId) {
+        Product product = findProductWithSuppliers(productId);
+        return new ProductSuppliers(product.getId(), product.getSupplier(), Map.copyOf(product.getSuppliersRegions()));
+    }
+    
+    // Single primary-key lookup joining the supplier and the regional suppliers
+    private Product findProductWithSuppliers(String productId) {
+        return productRepository.findWithSuppliersById(productId)
             .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
-        return supplierRepository.findAll().stream()
-            .filter(s -> s.getProducts() != null && s.getProducts().stream()
-                .anyMatch(p -> p.getId().equals(productId)))
-            .toList();
     }
     
     public List<Supplier> getSuppliersByCountry(String country) {
@@ -52,6 +74,7 @@ public class SupplierService {
         return supplierRepository.findByRegion(region);
     }
     
+    @Transactional
     public Supplier updateSupplier(String id, String name, String contactEmail, String contactPhone,
                                    String country, String region) {
         Supplier supplier = supplierRepository.findById(id)
@@ -63,12 +86,19 @@ public class SupplierService {
         supplier.setCountry(country);
         supplier.setRegion(region);
         
-        return supplierRepository.save(supplier);
+        Supplier saved = supplierRepository.save(supplier);
+        eventPublisher.publishEvent(new SupplierSavedEvent(saved));
+        return saved;
     }
     
+    // Set-based instead of the cascade, which loads and removes the products one at a time:
+    // a few statements whatever the size of the supplier's catalog
+    @Transactional
     public void deleteSupplier(String id) {
-        Supplier supplier = supplierRepository.findById(id)
-            .orElseThrow(() -> new IllegalArgumentException("Supplier not found: " + id));
-        supplierRepository.delete(supplier);
+        productService.deleteBySupplierId(id);
+        if (supplierRepository.deleteSupplierById(id) == 0) {
+            throw new IllegalArgumentException("Supplier not found: " + id);
+        }
+        eventPublisher.publishEvent(new SupplierDeletedEvent(id));
     }
 }
@@ -0,0 +1,10 @@
+package com.omniproduct.service.event;
+
+import com.omniproduct.model.Product;
+
+// Published inside the saving transaction; listeners needing committed data use @TransactionalEventListener.
+// stockReplaced is false when the save left the stock as it was, such as a patch of other fields
+public record ProductSavedEvent(
+    Product product,
+    boolean stockReplaced
+) {}
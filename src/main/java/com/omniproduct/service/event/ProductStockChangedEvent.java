@@ -0,0 +1,8 @@
+package com.omniproduct.service.event;
+
+// Published by reservations and releases, which change the stock without a ProductSavedEvent, and
+// by the flushes of hot products, within the transaction that writes their stock
+public record ProductStockChangedEvent(
+    String productId,
+    int stock
+) {}
@@ -0,0 +1,7 @@
+package com.omniproduct.service.event;
+
+import java.util.Collection;
+
+public record ProductsDeletedEvent(
+    Collection<String> productIds
+) {}
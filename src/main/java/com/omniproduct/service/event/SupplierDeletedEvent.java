@@ -0,0 +1,6 @@
+package com.omniproduct.service.event;
+
+// Its products are reported by a ProductsDeletedEvent of the same transaction
+public record SupplierDeletedEvent(
+    String supplierId
+) {}
@@ -0,0 +1,8 @@
+package com.omniproduct.service.event;
+
+import com.omniproduct.model.Supplier;
+
+// Published inside the saving transaction
+public record SupplierSavedEvent(
+    Supplier supplier
+) {}
@@ -0,0 +1,266 @@
+package com.omniproduct.service.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.omniproduct.config.CatalogImportProperties;
+import com.omniproduct.exception.CatalogImportException;
+import com.omniproduct.model.ImportProgress;
+import com.omniproduct.model.Product;
+import com.omniproduct.model.ProductBatchResult;
+import com.omniproduct.service.ProductService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Imports a catalog dump from a file. A reader thread walks the file through a memory-mapped
+// window and parses it into batches; a writer thread hands each batch to ProductService.saveAll.
+// The queue between them is bounded, so the reader waits whenever the database falls behind
+// and memory stays bounded by queue-capacity x batch-size products whatever the file size.
+@Service
+public class CatalogImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportService.class);
+    private static final List<Product> END_OF_FILE = List.of();
+
+    private final ProductService productService;
+    private final ObjectReader productReader;
+    private final CatalogImportProperties properties;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Cache<String, ImportJob> jobs;
+
+    public CatalogImportService(ProductService productService, ObjectMapper objectMapper,
+                                CatalogImportProperties properties) {
+        this.productService = productService;
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.properties = properties;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfter(retainFinishedJobs(properties.jobRetention()))
+                .build();
+    }
+
+    // Files are only read from the import directory
+    public ImportProgress start(String file, ImportFormat format) {
+        Path directory = properties.directory().toAbsolutePath().normalize();
+        Path path = directory.resolve(file).normalize();
+        if (!path.startsWith(directory)) {
+            throw new CatalogImportException("Import file must be inside the import directory: " + file);
+        }
+        return start(path, format);
+    }
+
+    public Optional<ImportProgress> progress(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(ImportJob::progress);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void importBootstrapFile() {
+        if (properties.bootstrapFile() != null) {
+            ImportProgress job = start(properties.bootstrapFile().toAbsolutePath(), null);
+            log.info("Importing catalog from {} as job {}", job.file(), job.jobId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ImportProgress start(Path path, ImportFormat format) {
+        if (!Files.isRegularFile(path)) {
+            throw new CatalogImportException("Import file not found: " + path.getFileName());
+        }
+        ImportFormat resolved = Optional.ofNullable(format)
+                .or(() -> ImportFormat.fromFileName(path))
+                .orElseThrow(() -> new CatalogImportException("Cannot tell the format of " + path.getFileName()
+                        + "; name it .ndjson or .csv, or pass the format"));
+        ImportJob job;
+        try {
+            job = new ImportJob(UUID.randomUUID().toString(), path, resolved, Files.size(path),
+                    properties.queueCapacity(), properties.maxReportedErrors());
+        } catch (IOException e) {
+            throw new CatalogImportException("Cannot read import file " + path.getFileName() + ": " + e.getMessage());
+        }
+        jobs.put(job.id, job);
+        executor.execute(() -> read(job));
+        executor.execute(() -> write(job));
+        return job.progress();
+    }
+
+    private void read(ImportJob job) {
+        try (MappedLineReader reader = new MappedLineReader(job.path, (int) properties.readWindow().toBytes())) {
+            CsvProductParser csv = null;
+            List<Product> batch = new ArrayList<>(properties.batchSize());
+            String line;
+            while ((line = reader.nextLine()) != null && !job.isFinished()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (job.format == ImportFormat.CSV && csv == null) {
+                    csv = new CsvProductParser(line);
+                    continue;
+                }
+                job.recordsRead.incrementAndGet();
+                try {
+                    batch.add(job.format == ImportFormat.CSV ? csv.parse(line) : productReader.readValue(line));
+                } catch (IOException | RuntimeException e) {
+                    job.reject("line " + reader.lineNumber() + ": " + e.getMessage());
+                }
+                job.bytesRead.set(reader.position());
+                if (batch.size() >= properties.batchSize()) {
+                    enqueue(job, batch);
+                    batch = new ArrayList<>(properties.batchSize());
+                }
+            }
+            job.bytesRead.set(reader.position());
+            if (!batch.isEmpty()) {
+                enqueue(job, batch);
+            }
+        } catch (IOException | RuntimeException e) {
+            job.fail("Cannot read " + job.path.getFileName() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import interrupted");
+        } finally {
+            if (job.isFinished()) {
+                // Nobody will save the pending batches; make room so the writer sees the end
+                job.queue.clear();
+                job.queue.offer(END_OF_FILE);
+            } else {
+                try {
+                    enqueue(job, END_OF_FILE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // Blocks while the writer is behind, unless the job has already ended
+    private static void enqueue(ImportJob job, List<Product> batch) throws InterruptedException {
+        while (!job.queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if (job.isFinished()) {
+                return;
+            }
+        }
+    }
+
+    private void write(ImportJob job) {
+        try {
+            List<Product> batch;
+            while ((batch = job.queue.take()) != END_OF_FILE) {
+                ProductBatchResult result = productService.saveAll(batch);
+                job.saved.addAndGet(result.saved());
+                result.failures().forEach(failure -> job.reject("product " + failure.id() + ": " + failure.error()));
+            }
+            job.complete();
+            log.info("Import {} of {} finished: {} saved, {} rejected",
+                    job.id, job.path.getFileName(), job.saved.get(), job.failed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import interrupted");
+        } catch (RuntimeException e) {
+            log.error("Import {} of {} failed", job.id, job.path.getFileName(), e);
+            job.fail("Cannot save products: " + e.getMessage());
+        } finally {
+            // The writer is the last to leave a job; writing it again starts its retention period
+            jobs.put(job.id, job);
+        }
+    }
+
+    // Running jobs never expire; finished ones are dropped once the retention has elapsed
+    private static Expiry<String, ImportJob> retainFinishedJobs(Duration retention) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String id, ImportJob job, long currentTime) {
+                return job.isFinished() ? retention.toNanos() : Long.MAX_VALUE;
+            }
+
+            @Override
+            public long expireAfterUpdate(String id, ImportJob job, long currentTime, long currentDuration) {
+                return expireAfterCreate(id, job, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String id, ImportJob job, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private static final class ImportJob {
+        final String id;
+        final Path path;
+        final ImportFormat format;
+        final long totalBytes;
+        final BlockingQueue<List<Product>> queue;
+        final int maxReportedErrors;
+        final Instant startedAt = Instant.now();
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong recordsRead = new AtomicLong();
+        final AtomicLong saved = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile ImportProgress.State state = ImportProgress.State.RUNNING;
+        volatile Instant finishedAt;
+
+        ImportJob(String id, Path path, ImportFormat format, long totalBytes, int queueCapacity, int maxReportedErrors) {
+            this.id = id;
+            this.path = path;
+            this.format = format;
+            this.totalBytes = totalBytes;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        boolean isFinished() {
+            return state != ImportProgress.State.RUNNING;
+        }
+
+        void reject(String error) {
+            failed.incrementAndGet();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(error);
+            }
+        }
+
+        synchronized void complete() {
+            if (state == ImportProgress.State.RUNNING) {
+                state = ImportProgress.State.COMPLETED;
+                finishedAt = Instant.now();
+            }
+        }
+
+        synchronized void fail(String error) {
+            if (state == ImportProgress.State.RUNNING) {
+                errors.add(error);
+                state = ImportProgress.State.FAILED;
+                finishedAt = Instant.now();
+            }
+        }
+
+        ImportProgress progress() {
+            List<String> reported;
+            synchronized (errors) {
+                reported = List.copyOf(errors);
+            }
+            return new ImportProgress(id, path.getFileName().toString(), format.name(), state, totalBytes,
+                    bytesRead.get(), recordsRead.get(), saved.get(), failed.get(), reported,
+                    startedAt, finishedAt);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.omniproduct.service.importing;
+
+import com.omniproduct.model.Product;
+
+import java.util.*;
+
+// Maps CSV lines to products using the column names of Product.yaml:
+// id,name,slug,price.base,price.tax,price.tax_rate,discounts,images,weight,dimensions,quantity,stock,warehouse.location
+// Columns may come in any order and unknown ones are ignored. Fields can be double-quoted;
+// discounts are separated by '|' and images are key=url pairs separated by '|'.
+public class CsvProductParser {
+
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    public CsvProductParser(String header) {
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).strip().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("id")) {
+            throw new IllegalArgumentException("CSV header has no id column: " + header);
+        }
+    }
+
+    public Product parse(String line) {
+        List<String> fields = split(line);
+        Product product = new Product();
+        product.setId(text(fields, "id"));
+        product.setName(text(fields, "name"));
+        product.setSlug(text(fields, "slug"));
+        Double base = number(fields, "price.base");
+        Double tax = number(fields, "price.tax");
+        Double taxRate = number(fields, "price.tax_rate");
+        if (base != null || tax != null || taxRate != null) {
+            product.setPrice(new Product.Price(base, tax, taxRate));
+        }
+        String discounts = text(fields, "discounts");
+        product.setDiscounts(discounts == null ? new ArrayList<>() : new ArrayList<>(List.of(discounts.split("\\|"))));
+        product.setImages(images(text(fields, "images")));
+        product.setKilos(number(fields, "weight"));
+        product.setVolume(text(fields, "dimensions"));
+        product.setQuantity(integer(fields, "quantity"));
+        product.setStock(integer(fields, "stock"));
+        String location = text(fields, "warehouse.location");
+        if (location != null) {
+            product.setWarehouse(new Product.Warehouse(location));
+        }
+        return product;
+    }
+
+    private String text(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Double number(List<String> fields, String column) {
+        String value = text(fields, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Column " + column + " is not a number: " + value);
+        }
+    }
+
+    private Integer integer(List<String> fields, String column) {
+        String value = text(fields, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Column " + column + " is not an integer: " + value);
+        }
+    }
+
+    private static Map<String, String> images(String value) {
+        Map<String, String> images = new HashMap<>();
+        if (value == null) {
+            return images;
+        }
+        for (String pair : value.split("\\|")) {
+            int separator = pair.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Image is not a key=url pair: " + pair);
+            }
+            images.put(pair.substring(0, separator), pair.substring(separator + 1));
+        }
+        return images;
+    }
+
+    // RFC 4180 fields within one line: quoted fields may hold commas and "" for a quote
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,23 @@
+package com.omniproduct.service.importing;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+public enum ImportFormat {
+    // One product per line, in the JSON shape of the REST API
+    NDJSON,
+    // A header line naming the columns after Product.yaml, then one product per line
+    CSV;
+
+    public static Optional<ImportFormat> fromFileName(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return Optional.of(NDJSON);
+        }
+        if (name.endsWith(".csv")) {
+            return Optional.of(CSV);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,96 @@
+package com.omniproduct.service.importing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads a file line by line through a sliding memory-mapped window, so files larger than the
+// heap are read without copying them into it. Lines are UTF-8 and end with \n (a trailing \r is dropped).
+public class MappedLineReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private long lineNumber;
+
+    public MappedLineReader(Path file, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    // Next line, or null at the end of the file
+    public String nextLine() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        if (window == null || position - windowStart >= window.limit()) {
+            map();
+        }
+        int start = (int) (position - windowStart);
+        int end = indexOfNewline(start);
+        if (end < 0) {
+            if (windowStart + window.limit() < size) {
+                // The line runs past the window: remap from its first byte and look again
+                map();
+                start = 0;
+                end = indexOfNewline(start);
+                if (end < 0 && window.limit() < size - windowStart) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than the " + windowSize + " byte read window");
+                }
+            }
+            if (end < 0) {
+                end = window.limit();
+            }
+        }
+        int length = end - start;
+        if (length > 0 && window.get(start + length - 1) == '\r') {
+            length--;
+        }
+        byte[] bytes = new byte[length];
+        window.get(start, bytes);
+        position = windowStart + end + 1;
+        lineNumber++;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long position() {
+        return Math.min(position, size);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void map() throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowSize, size - windowStart));
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < window.limit(); i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,101 @@
+package com.omniproduct.service.index;
+
+import java.util.Arrays;
+
+// Growable bitset over row ids. Unlike java.util.BitSet it can count an intersection
+// without allocating, which facet counting does once per facet value.
+final class Bits {
+
+    private long[] words;
+
+    Bits() {
+        this.words = new long[1];
+    }
+
+    private Bits(long[] words) {
+        this.words = words;
+    }
+
+    void set(int bit) {
+        int word = bit >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << bit;
+    }
+
+    void clear(int bit) {
+        int word = bit >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << bit);
+        }
+    }
+
+    boolean get(int bit) {
+        int word = bit >>> 6;
+        return word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    Bits copy() {
+        return new Bits(words.clone());
+    }
+
+    void and(Bits other) {
+        int common = Math.min(words.length, other.words.length);
+        for (int i = 0; i < common; i++) {
+            words[i] &= other.words[i];
+        }
+        Arrays.fill(words, common, words.length, 0);
+    }
+
+    void andNot(Bits other) {
+        int common = Math.min(words.length, other.words.length);
+        for (int i = 0; i < common; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    void or(Bits other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    static int andCardinality(Bits a, Bits b) {
+        int common = Math.min(a.words.length, b.words.length);
+        int count = 0;
+        for (int i = 0; i < common; i++) {
+            count += Long.bitCount(a.words[i] & b.words[i]);
+        }
+        return count;
+    }
+
+    // Index of the first set bit at or after from, or -1
+    int nextSetBit(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.omniproduct.service.index;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Column-oriented copy of the filterable product attributes. Numbers sit in primitive arrays
+// indexed by row, warehouses and supplier regions are dictionary-encoded with one bitset of rows
+// per value, so a filter is a few bitset operations plus a scan of the range-filtered columns.
+// The same columns feed the catalog aggregates, reduced in parallel over slices of rows.
+public class ProductFacetIndex {
+
+    public static final String IN_STOCK = "inStock";
+    public static final String OUT_OF_STOCK = "outOfStock";
+
+    // Below this many rows per slice, forking costs more than the scan it saves
+    private static final int MIN_ROWS_PER_TASK = 1 << 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rows = new HashMap<>();
+    private final ArrayDeque<Integer> freeRows = new ArrayDeque<>();
+    private final Bits live = new Bits();
+    private final Bits inStock = new Bits();
+    private final Dictionary warehouses = new Dictionary();
+    private final Dictionary regions = new Dictionary();
+
+    private String[] productIds = new String[1024];
+    private double[] prices = new double[1024];
+    private double[] kilos = new double[1024];
+    private int[] quantities = new int[1024];
+    private int[] stocks = new int[1024];
+    private int[] warehouseCodes = new int[1024];
+    private int[][] regionCodes = new int[1024][];
+
+    public record Row(
+        String productId,
+        Double price,
+        Integer stock,
+        Integer quantity,
+        Double kilos,
+        String warehouse,
+        Collection<String> regions
+    ) {}
+
+    // Inclusive bounds; a null bound is open
+    public record Range(
+        Double min,
+        Double max
+    ) {
+        public static final Range ANY = new Range(null, null);
+
+        boolean isAny() {
+            return min == null && max == null;
+        }
+
+        // Rows without a value never match a bounded range
+        boolean contains(double value) {
+            return !Double.isNaN(value) && (min == null || value >= min) && (max == null || value <= max);
+        }
+    }
+
+    public record Query(
+        Range price,
+        Range kilos,
+        Range quantity,
+        Boolean inStock,
+        Set<String> warehouses,
+        Set<String> regions
+    ) {}
+
+    // Facet counts of a dimension ignore the filter on that same dimension,
+    // so they tell how many products selecting another value would give
+    public record Result(
+        int total,
+        List<String> productIds,
+        Map<String, Integer> warehouses,
+        Map<String, Integer> regions,
+        Map<String, Integer> availability,
+        Double minPrice,
+        Double maxPrice
+    ) {}
+
+    // Value is base price times stock, summed in cents; a null warehouse gathers the products without one
+    public record WarehouseInventory(
+        String warehouse,
+        int products,
+        long units,
+        double value
+    ) {}
+
+    public record RegionStock(
+        String region,
+        int products,
+        long units
+    ) {}
+
+    // Equal-width buckets from the lightest to the heaviest product, the last one including the
+    // heaviest; products without a weight are only counted in missing
+    public record Histogram(
+        Double min,
+        Double max,
+        double width,
+        long[] counts,
+        int missing
+    ) {}
+
+    public void put(Row row) {
+        lock.writeLock().lock();
+        try {
+            Integer index = rows.get(row.productId());
+            if (index != null) {
+                unindex(index);
+            } else {
+                index = freeRows.isEmpty() ? rows.size() : freeRows.pop();
+                rows.put(row.productId(), index);
+                ensureCapacity(index + 1);
+            }
+            productIds[index] = row.productId();
+            prices[index] = row.price() == null ? Double.NaN : row.price();
+            kilos[index] = row.kilos() == null ? Double.NaN : row.kilos();
+            quantities[index] = row.quantity() == null ? Integer.MIN_VALUE : row.quantity();
+            stocks[index] = row.stock() == null ? 0 : row.stock();
+            warehouseCodes[index] = row.warehouse() == null ? -1 : warehouses.encode(row.warehouse());
+            if (warehouseCodes[index] >= 0) {
+                warehouses.rows(warehouseCodes[index]).set(index);
+            }
+            int[] codes = row.regions().stream().filter(Objects::nonNull).distinct().mapToInt(regions::encode).toArray();
+            for (int code : codes) {
+                regions.rows(code).set(index);
+            }
+            regionCodes[index] = codes;
+            if (row.stock() != null && row.stock() > 0) {
+                inStock.set(index);
+            }
+            live.set(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            Integer index = rows.remove(productId);
+            if (index != null) {
+                unindex(index);
+                productIds[index] = null;
+                freeRows.push(index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Stock only feeds the availability bit, so a reservation does not re-encode the whole row
+    public void updateStock(String productId, int stock) {
+        lock.writeLock().lock();
+        try {
+            Integer index = rows.get(productId);
+            if (index == null) {
+                return;
+            }
+            stocks[index] = stock;
+            if (stock > 0) {
+                inStock.set(index);
+            } else {
+                inStock.clear(index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Result filter(Query query, int limit) {
+        lock.readLock().lock();
+        try {
+            Bits ranged = live.copy();
+            if (!query.price().isAny() || !query.kilos().isAny() || !query.quantity().isAny()) {
+                for (int row = ranged.nextSetBit(0); row >= 0; row = ranged.nextSetBit(row + 1)) {
+                    if (!query.price().isAny() && !query.price().contains(prices[row])
+                            || !query.kilos().isAny() && !query.kilos().contains(kilos[row])
+                            || !query.quantity().isAny() && !query.quantity().contains(quantityOf(row))) {
+                        ranged.clear(row);
+                    }
+                }
+            }
+            Bits availability = availabilityRows(query.inStock());
+            Bits warehouse = warehouses.union(query.warehouses());
+            Bits region = regions.union(query.regions());
+
+            Bits matching = intersect(ranged, availability, warehouse, region);
+            List<String> ids = new ArrayList<>(Math.min(limit, 1024));
+            double minPrice = Double.NaN;
+            double maxPrice = Double.NaN;
+            for (int row = matching.nextSetBit(0); row >= 0; row = matching.nextSetBit(row + 1)) {
+                if (ids.size() < limit) {
+                    ids.add(productIds[row]);
+                }
+                if (!Double.isNaN(prices[row])) {
+                    minPrice = Double.isNaN(minPrice) ? prices[row] : Math.min(minPrice, prices[row]);
+                    maxPrice = Double.isNaN(maxPrice) ? prices[row] : Math.max(maxPrice, prices[row]);
+                }
+            }
+
+            Bits withoutAvailability = intersect(ranged, null, warehouse, region);
+            int inStockCount = Bits.andCardinality(withoutAvailability, inStock);
+            Map<String, Integer> availabilityCounts = new LinkedHashMap<>();
+            availabilityCounts.put(IN_STOCK, inStockCount);
+            availabilityCounts.put(OUT_OF_STOCK, withoutAvailability.cardinality() - inStockCount);
+
+            return new Result(matching.cardinality(), ids,
+                warehouses.counts(intersect(ranged, availability, null, region)),
+                regions.counts(intersect(ranged, availability, warehouse, null)),
+                availabilityCounts,
+                Double.isNaN(minPrice) ? null : minPrice,
+                Double.isNaN(maxPrice) ? null : maxPrice);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<WarehouseInventory> inventoryByWarehouse() {
+        lock.readLock().lock();
+        try {
+            int slots = warehouses.size() + 1;
+            Totals totals = reduceLiveRows(() -> new Totals(slots), (partial, row) -> {
+                int slot = warehouseCodes[row] >= 0 ? warehouseCodes[row] : slots - 1;
+                partial.products[slot]++;
+                partial.units[slot] += stocks[row];
+                if (!Double.isNaN(prices[row])) {
+                    partial.cents[slot] += Math.round(prices[row] * 100) * stocks[row];
+                }
+            }, Totals::add);
+
+            List<WarehouseInventory> inventory = new ArrayList<>();
+            for (int slot = 0; slot < slots; slot++) {
+                if (totals.products[slot] > 0) {
+                    inventory.add(new WarehouseInventory(slot < slots - 1 ? warehouses.value(slot) : null,
+                        totals.products[slot], totals.units[slot], totals.cents[slot] / 100.0));
+                }
+            }
+            inventory.sort(Comparator.comparingDouble(WarehouseInventory::value).reversed());
+            return inventory;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RegionStock> stockByRegion() {
+        lock.readLock().lock();
+        try {
+            int slots = regions.size();
+            Totals totals = reduceLiveRows(() -> new Totals(slots), (partial, row) -> {
+                for (int code : regionCodes[row]) {
+                    partial.products[code]++;
+                    partial.units[code] += stocks[row];
+                }
+            }, Totals::add);
+
+            List<RegionStock> stock = new ArrayList<>();
+            for (int code = 0; code < slots; code++) {
+                if (totals.products[code] > 0) {
+                    stock.add(new RegionStock(regions.value(code), totals.products[code], totals.units[code]));
+                }
+            }
+            stock.sort(Comparator.comparingLong(RegionStock::units).reversed().thenComparing(RegionStock::region));
+            return stock;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Two passes: the weight range, then the bucket counts
+    public Histogram kilosHistogram(int buckets) {
+        lock.readLock().lock();
+        try {
+            double[] range = reduceLiveRows(
+                () -> new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0},
+                (partial, row) -> {
+                    if (Double.isNaN(kilos[row])) {
+                        partial[2]++;
+                    } else {
+                        partial[0] = Math.min(partial[0], kilos[row]);
+                        partial[1] = Math.max(partial[1], kilos[row]);
+                    }
+                },
+                (a, b) -> new double[]{Math.min(a[0], b[0]), Math.max(a[1], b[1]), a[2] + b[2]});
+            int missing = (int) range[2];
+            if (range[0] > range[1]) {
+                return new Histogram(null, null, 0, new long[0], missing);
+            }
+            double min = range[0];
+            double width = (range[1] - min) / buckets;
+            long[] counts = reduceLiveRows(() -> new long[buckets], (partial, row) -> {
+                if (!Double.isNaN(kilos[row])) {
+                    int bucket = width == 0 ? 0 : (int) ((kilos[row] - min) / width);
+                    partial[Math.min(bucket, buckets - 1)]++;
+                }
+            }, (a, b) -> {
+                Arrays.setAll(a, i -> a[i] + b[i]);
+                return a;
+            });
+            return new Histogram(min, range[1], width, counts, missing);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Slices the rows among fork-join tasks, each reducing its slice into its own partial result.
+    // The caller holds the read lock for the whole reduction, so no writer runs meanwhile.
+    private <A> A reduceLiveRows(Supplier<A> identity, ObjIntConsumer<A> accumulator, BinaryOperator<A> combiner) {
+        int rowCount = rows.size() + freeRows.size();
+        int tasks = Math.clamp(rowCount / MIN_ROWS_PER_TASK, 1, ForkJoinPool.getCommonPoolParallelism() * 4);
+        int rowsPerTask = (rowCount + tasks - 1) / tasks;
+        IntStream slices = IntStream.range(0, tasks);
+        return (tasks > 1 ? slices.parallel() : slices)
+            .mapToObj(task -> {
+                A partial = identity.get();
+                int end = Math.min(rowCount, (task + 1) * rowsPerTask);
+                for (int row = task * rowsPerTask; row < end; row++) {
+                    if (live.get(row)) {
+                        accumulator.accept(partial, row);
+                    }
+                }
+                return partial;
+            })
+            .reduce(combiner)
+            .orElseGet(identity);
+    }
+
+    private Bits availabilityRows(Boolean wantInStock) {
+        if (wantInStock == null) {
+            return null;
+        }
+        if (wantInStock) {
+            return inStock;
+        }
+        Bits outOfStock = live.copy();
+        outOfStock.andNot(inStock);
+        return outOfStock;
+    }
+
+    private static Bits intersect(Bits base, Bits a, Bits b, Bits c) {
+        Bits result = base.copy();
+        for (Bits filter : new Bits[]{a, b, c}) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private double quantityOf(int row) {
+        return quantities[row] == Integer.MIN_VALUE ? Double.NaN : quantities[row];
+    }
+
+    private void unindex(int index) {
+        if (warehouseCodes[index] >= 0) {
+            warehouses.rows(warehouseCodes[index]).clear(index);
+        }
+        for (int code : regionCodes[index]) {
+            regions.rows(code).clear(index);
+        }
+        inStock.clear(index);
+        live.clear(index);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) {
+            return;
+        }
+        int grown = Math.max(capacity, productIds.length * 2);
+        productIds = Arrays.copyOf(productIds, grown);
+        prices = Arrays.copyOf(prices, grown);
+        kilos = Arrays.copyOf(kilos, grown);
+        quantities = Arrays.copyOf(quantities, grown);
+        stocks = Arrays.copyOf(stocks, grown);
+        warehouseCodes = Arrays.copyOf(warehouseCodes, grown);
+        regionCodes = Arrays.copyOf(regionCodes, grown);
+    }
+
+    // Per-slot sums of one aggregation, indexed by dictionary code
+    private static final class Totals {
+        private final int[] products;
+        private final long[] units;
+        private final long[] cents;
+
+        Totals(int slots) {
+            this.products = new int[slots];
+            this.units = new long[slots];
+            this.cents = new long[slots];
+        }
+
+        Totals add(Totals other) {
+            for (int slot = 0; slot < products.length; slot++) {
+                products[slot] += other.products[slot];
+                units[slot] += other.units[slot];
+                cents[slot] += other.cents[slot];
+            }
+            return this;
+        }
+    }
+
+    // Distinct values of a text column, each with a code and the bitset of rows holding it
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<Bits> rows = new ArrayList<>();
+
+        int encode(String value) {
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                rows.add(new Bits());
+                return values.size() - 1;
+            });
+        }
+
+        Bits rows(int code) {
+            return rows.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        // Rows holding any of the values, or null when no value is asked for
+        Bits union(Set<String> selected) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            Bits union = new Bits();
+            for (String value : selected) {
+                Integer code = codes.get(value);
+                if (code != null) {
+                    union.or(rows.get(code));
+                }
+            }
+            return union;
+        }
+
+        // Values held by at least one of the rows, most frequent first
+        Map<String, Integer> counts(Bits within) {
+            List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+            for (int code = 0; code < values.size(); code++) {
+                int count = Bits.andCardinality(within, rows.get(code));
+                if (count > 0) {
+                    counts.add(Map.entry(values.get(code), count));
+                }
+            }
+            counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+            Map<String, Integer> ordered = new LinkedHashMap<>();
+            counts.forEach(entry -> ordered.put(entry.getKey(), entry.getValue()));
+            return ordered;
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package com.omniproduct.service.index;
+
+import com.omniproduct.exception.SearchPrefixTooBroadException;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// In-memory inverted index over the searchable text of products. Each term maps to the
+// products containing it, kept sorted by an internal int id so postings intersect in one forward
+// pass. Queries match every term, the last one also as a prefix, and rank by the field-weighted
+// frequency of each term times its inverse document frequency.
+public class ProductSearchIndex {
+
+    static final float NAME_WEIGHT = 3f;
+    static final float SLUG_WEIGHT = 2f;
+    static final float SUPPLIER_WEIGHT = 1.5f;
+    static final float DISCOUNT_WEIGHT = 1f;
+    // A prefix match counts for less than the whole word
+    private static final float PREFIX_FACTOR = 0.5f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    // A term in at least one product in DENSE_RATIO, and in MIN_DENSE_SIZE of them, also gets a bitset
+    private static final int DENSE_RATIO = 32;
+    private static final int MIN_DENSE_SIZE = 1024;
+    // When even the rarest match is in one product in BLOCK_RATIO, the matches are intersected as bitsets
+    private static final int BLOCK_RATIO = 256;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final List<Doc> docs = new ArrayList<>();
+    private final ArrayDeque<Integer> freeDocIds = new ArrayDeque<>();
+
+    public record Document(
+        String productId,
+        String name,
+        String slug,
+        Collection<String> discounts,
+        Collection<String> supplierNames
+    ) {}
+
+    public record Hit(
+        String productId,
+        String name,
+        String slug,
+        float score
+    ) {}
+
+    public record Result(
+        int total,
+        List<Hit> hits
+    ) {}
+
+    public void put(Document document) {
+        Map<String, Float> weights = new HashMap<>();
+        addTerms(weights, document.name(), NAME_WEIGHT);
+        addTerms(weights, document.slug(), SLUG_WEIGHT);
+        document.discounts().forEach(discount -> addTerms(weights, discount, DISCOUNT_WEIGHT));
+        document.supplierNames().forEach(supplier -> addTerms(weights, supplier, SUPPLIER_WEIGHT));
+
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.get(document.productId());
+            if (docId != null) {
+                unindex(docId);
+            } else {
+                docId = freeDocIds.isEmpty() ? docs.size() : freeDocIds.pop();
+                docIds.put(document.productId(), docId);
+            }
+            Doc doc = new Doc(document.productId(), document.name(), document.slug(),
+                weights.keySet().toArray(String[]::new));
+            if (docId == docs.size()) {
+                docs.add(doc);
+            } else {
+                docs.set(docId, doc);
+            }
+            for (Map.Entry<String, Float> term : weights.entrySet()) {
+                Postings postings = terms.computeIfAbsent(term.getKey(), t -> new Postings());
+                postings.put(docId, term.getValue());
+                if (postings.bits == null && postings.size >= MIN_DENSE_SIZE
+                        && (long) postings.size * DENSE_RATIO >= docIds.size()) {
+                    postings.addBits();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.remove(productId);
+            if (docId != null) {
+                unindex(docId);
+                docs.set(docId, null);
+                freeDocIds.push(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            docIds.clear();
+            docs.clear();
+            freeDocIds.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A prefix of more than MAX_PREFIX_EXPANSIONS terms is checked against the terms of the
+    // products the other words matched; on its own it would match too much and is refused
+    public Result search(String query, int limit) {
+        List<String> tokens = tokenize(query).stream().distinct().toList();
+        if (tokens.isEmpty() || limit <= 0) {
+            return new Result(0, List.of());
+        }
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                Match match = match(tokens.get(i), i == tokens.size() - 1);
+                if (match.size() == 0) {
+                    return new Result(0, List.of());
+                }
+                matches.add(match);
+            }
+            // Walk the rarest term and probe the others, so the cost follows the most selective term
+            matches.sort(Comparator.comparingLong(Match::size));
+            if (matches.get(0).broad()) {
+                throw new SearchPrefixTooBroadException("\"" + matches.get(0).token()
+                    + "\" starts too many words to search on its own, type more of it or add another word");
+            }
+            TopHits top = new TopHits(limit);
+            int total = (long) matches.get(0).size() * BLOCK_RATIO >= docIds.size() && !matches.getLast().broad()
+                ? searchBlocks(matches, top)
+                : searchPostings(matches, top);
+            return new Result(total, top.sorted());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Walks the rarest match and probes the others: a cursor per part, a broad prefix with the
+    // product's own terms
+    private int searchPostings(List<Match> matches, TopHits top) {
+        Cursor driver = matches.get(0).union();
+        List<Match> probes = matches.subList(1, matches.size());
+        Cursor[][] cursors = new Cursor[probes.size()][];
+        String[] broadPrefixes = new String[probes.size()];
+        for (int m = 0; m < cursors.length; m++) {
+            cursors[m] = probes.get(m).cursors();
+            broadPrefixes[m] = probes.get(m).broad() ? probes.get(m).token() : null;
+        }
+        int total = 0;
+        candidates:
+        for (int c = 0; c < driver.size; c++) {
+            int docId = driver.docs[c];
+            float score = driver.weights[c] * driver.factor;
+            for (int m = 0; m < cursors.length; m++) {
+                float matched = broadPrefixes[m] != null ? prefixScore(docId, broadPrefixes[m]) : score(cursors[m], docId);
+                if (matched < 0) {
+                    continue candidates;
+                }
+                score += matched;
+            }
+            total++;
+            top.offer(docId, score);
+        }
+        return total;
+    }
+
+    // When even the rarest match is common, walking it would visit too many products: the bitsets
+    // of the matches are intersected 64 doc ids at a time instead, and the products in a word are
+    // only scored when the best weights there could beat the lowest of the top hits
+    private int searchBlocks(List<Match> matches, TopHits top) {
+        int words = (docs.size() + 63) >>> 6;
+        Block[] blocks = new Block[matches.size()];
+        Cursor[][] cursors = new Cursor[matches.size()][];
+        for (int m = 0; m < blocks.length; m++) {
+            blocks[m] = matches.get(m).block(words);
+            cursors[m] = matches.get(m).cursors();
+            words = Math.min(words, blocks[m].bits().length);
+        }
+        int total = 0;
+        for (int word = 0; word < words; word++) {
+            long common = blocks[0].bits()[word];
+            for (int m = 1; m < blocks.length && common != 0; m++) {
+                common &= blocks[m].bits()[word];
+            }
+            if (common == 0) {
+                continue;
+            }
+            total += Long.bitCount(common);
+            float bound = 0;
+            for (Block block : blocks) {
+                bound += block.maxWeights()[word] * block.factor();
+            }
+            if (bound <= top.threshold) {
+                continue;
+            }
+            for (long rest = common; rest != 0; rest &= rest - 1) {
+                int docId = word << 6 | Long.numberOfTrailingZeros(rest);
+                float score = 0;
+                for (Cursor[] parts : cursors) {
+                    score += score(parts, docId);
+                }
+                top.offer(docId, score);
+            }
+        }
+        return total;
+    }
+
+    // Best score of the doc id among the parts of a match, or -1 when none has it
+    private static float score(Cursor[] parts, int docId) {
+        float matched = -1;
+        for (Cursor cursor : parts) {
+            matched = Math.max(matched, cursor.advanceTo(docId));
+        }
+        return matched;
+    }
+
+    // Lower-cased words with accents stripped, so "Été" matches "ete"
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(normalized)).filter(token -> !token.isEmpty()).toList();
+    }
+
+    // The postings of the token, and for a prefix token those of the longer terms it starts;
+    // beyond MAX_PREFIX_EXPANSIONS of them the match is broad and carries no postings
+    private Match match(String token, boolean prefix) {
+        List<Part> parts = new ArrayList<>();
+        Postings exact = terms.get(token);
+        if (exact != null) {
+            parts.add(new Part(exact, idf(exact.size)));
+        }
+        if (prefix) {
+            int expansions = 0;
+            for (Map.Entry<String, Postings> term : terms.tailMap(token, false).entrySet()) {
+                if (!term.getKey().startsWith(token)) {
+                    break;
+                }
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    return new Match(token, List.of(), true);
+                }
+                parts.add(new Part(term.getValue(), idf(term.getValue().size) * PREFIX_FACTOR));
+            }
+        }
+        return new Match(token, parts, false);
+    }
+
+    // Best score of the product among its own terms starting with the prefix, or -1 when none does
+    private float prefixScore(int docId, String prefix) {
+        float best = -1;
+        for (String term : docs.get(docId).terms()) {
+            if (term.startsWith(prefix)) {
+                Postings postings = terms.get(term);
+                int index = Arrays.binarySearch(postings.docs, 0, postings.size, docId);
+                float factor = idf(postings.size) * (term.length() == prefix.length() ? 1 : PREFIX_FACTOR);
+                best = Math.max(best, postings.weights[index] * factor);
+            }
+        }
+        return best;
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1 + (double) docIds.size() / documentFrequency);
+    }
+
+    private void unindex(int docId) {
+        Doc previous = docs.get(docId);
+        for (String term : previous.terms()) {
+            Postings postings = terms.get(term);
+            postings.remove(docId);
+            if (postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    // Only the term list is kept, to take the product out of the postings on update or delete
+    private record Doc(
+        String productId,
+        String name,
+        String slug,
+        String[] terms
+    ) {}
+
+    // The best hits so far, lowest first; on equal scores the one seen first stays
+    private final class TopHits {
+        private final int limit;
+        private final PriorityQueue<Hit> queue;
+        // Lowest score still entering the top, once it is full
+        float threshold = Float.NEGATIVE_INFINITY;
+
+        TopHits(int limit) {
+            this.limit = limit;
+            this.queue = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Hit::score));
+        }
+
+        void offer(int docId, float score) {
+            if (score > threshold) {
+                Doc doc = docs.get(docId);
+                queue.add(new Hit(doc.productId(), doc.name(), doc.slug(), score));
+                if (queue.size() > limit) {
+                    queue.poll();
+                }
+                if (queue.size() == limit) {
+                    threshold = queue.peek().score();
+                }
+            }
+        }
+
+        List<Hit> sorted() {
+            List<Hit> hits = new ArrayList<>(queue);
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::productId));
+            return hits;
+        }
+    }
+
+    // The doc ids of a match as a bitset, with the highest weight in each word of it
+    private record Block(
+        long[] bits,
+        float[] maxWeights,
+        float factor
+    ) {}
+
+    private record Part(
+        Postings postings,
+        float factor
+    ) {
+        Cursor cursor() {
+            return postings.bits == null
+                ? new Cursor(postings.docs, postings.weights, postings.size, factor, null, null)
+                : new Cursor(postings.docs, postings.weights, postings.size, factor, postings.bits, postings.ranks());
+        }
+    }
+
+    // What one query token matches: the union of one or more postings, each scaled by its factor.
+    // A broad prefix has no parts; it matches more than any other token
+    private record Match(
+        String token,
+        List<Part> parts,
+        boolean broad
+    ) {
+        // Upper bound, exact when there is a single part
+        long size() {
+            return broad ? Long.MAX_VALUE : parts.stream().mapToLong(part -> part.postings().size).sum();
+        }
+
+        Cursor[] cursors() {
+            return parts.stream().map(Part::cursor).toArray(Cursor[]::new);
+        }
+
+        // The bitset of a single common term is shared; otherwise the parts are combined into
+        // one of the given number of words, with their factors applied
+        Block block(int words) {
+            Postings single = parts.get(0).postings();
+            if (parts.size() == 1 && single.bits != null) {
+                return new Block(single.bits, single.maxWeights, parts.get(0).factor());
+            }
+            long[] bits = new long[words];
+            float[] maxWeights = new float[words];
+            for (Part part : parts) {
+                Postings postings = part.postings();
+                if (postings.bits != null) {
+                    for (int word = 0; word < Math.min(words, postings.bits.length); word++) {
+                        if (postings.bits[word] != 0) {
+                            bits[word] |= postings.bits[word];
+                            maxWeights[word] = Math.max(maxWeights[word], postings.maxWeights[word] * part.factor());
+                        }
+                    }
+                    continue;
+                }
+                for (int i = 0; i < postings.size; i++) {
+                    int word = postings.docs[i] >>> 6;
+                    bits[word] |= 1L << postings.docs[i];
+                    maxWeights[word] = Math.max(maxWeights[word], postings.weights[i] * part.factor());
+                }
+            }
+            return new Block(bits, maxWeights, 1f);
+        }
+
+        // Parts merged two by two, keeping the best score of each doc id
+        Cursor union() {
+            List<Cursor> cursors = parts.stream().map(Part::cursor).toList();
+            while (cursors.size() > 1) {
+                List<Cursor> merged = new ArrayList<>((cursors.size() + 1) / 2);
+                for (int i = 0; i < cursors.size(); i += 2) {
+                    merged.add(i + 1 < cursors.size() ? Cursor.merge(cursors.get(i), cursors.get(i + 1)) : cursors.get(i));
+                }
+                cursors = merged;
+            }
+            return cursors.get(0);
+        }
+    }
+
+    // Forward-only reader of scaled postings; the arrays may be shared with the index
+    private static final class Cursor {
+        private static final int LINEAR_STEPS = 4;
+
+        final int[] docs;
+        final float[] weights;
+        final int size;
+        final float factor;
+        private final long[] bits;
+        private final int[] ranks;
+        private int position;
+
+        Cursor(int[] docs, float[] weights, int size, float factor, long[] bits, int[] ranks) {
+            this.docs = docs;
+            this.weights = weights;
+            this.size = size;
+            this.factor = factor;
+            this.bits = bits;
+            this.ranks = ranks;
+        }
+
+        // Score of the doc id, or -1 when absent; doc ids must come in ascending order. With a
+        // bitset it is looked up directly, otherwise the cursor steps forward over short gaps
+        // and gallops over long ones
+        float advanceTo(int docId) {
+            if (bits != null) {
+                int word = docId >>> 6;
+                if (word >= bits.length || (bits[word] & 1L << docId) == 0) {
+                    return -1;
+                }
+                return weights[ranks[word] + Long.bitCount(bits[word] & (1L << docId) - 1)] * factor;
+            }
+            return seek(docId);
+        }
+
+        private float seek(int docId) {
+            int low = position;
+            int stepEnd = Math.min(low + LINEAR_STEPS, size);
+            while (low < stepEnd && docs[low] < docId) {
+                low++;
+            }
+            if (low == stepEnd && low < size && docs[low] < docId) {
+                int bound = 1;
+                while (low + bound < size && docs[low + bound] < docId) {
+                    low += bound;
+                    bound <<= 1;
+                }
+                int index = Arrays.binarySearch(docs, low + 1, Math.min(low + bound + 1, size), docId);
+                low = index >= 0 ? index : -index - 1;
+            }
+            position = low;
+            return low < size && docs[low] == docId ? weights[low] * factor : -1;
+        }
+
+        static Cursor merge(Cursor a, Cursor b) {
+            int[] docs = new int[a.size + b.size];
+            float[] weights = new float[a.size + b.size];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < a.size && j < b.size) {
+                if (a.docs[i] < b.docs[j]) {
+                    docs[n] = a.docs[i];
+                    weights[n++] = a.weights[i++] * a.factor;
+                } else if (a.docs[i] > b.docs[j]) {
+                    docs[n] = b.docs[j];
+                    weights[n++] = b.weights[j++] * b.factor;
+                } else {
+                    docs[n] = a.docs[i];
+                    weights[n++] = Math.max(a.weights[i++] * a.factor, b.weights[j++] * b.factor);
+                }
+            }
+            for (; i < a.size; i++) {
+                docs[n] = a.docs[i];
+                weights[n++] = a.weights[i] * a.factor;
+            }
+            for (; j < b.size; j++) {
+                docs[n] = b.docs[j];
+                weights[n++] = b.weights[j] * b.factor;
+            }
+            return new Cursor(docs, weights, n, 1f, null, null);
+        }
+    }
+
+    // Doc ids in ascending order with their weights, in parallel arrays. A common term also has
+    // a bit per doc id, and ranks, the number of bits set before each word, rebuilt on the first
+    // query after a change; together they give the index of a doc id without searching docs. The
+    // highest weight in each word is not lowered on removal, it stays an upper bound
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+        long[] bits;
+        float[] maxWeights;
+        private volatile int[] ranks;
+
+        void addBits() {
+            bits = new long[(docs[size - 1] >>> 6) + 1];
+            maxWeights = new float[bits.length];
+            for (int i = 0; i < size; i++) {
+                setBit(docs[i], weights[i]);
+            }
+            ranks = null;
+        }
+
+        private void setBit(int docId, float weight) {
+            int word = docId >>> 6;
+            if (word >= bits.length) {
+                bits = Arrays.copyOf(bits, Math.max(bits.length * 2, word + 1));
+                maxWeights = Arrays.copyOf(maxWeights, bits.length);
+            }
+            bits[word] |= 1L << docId;
+            maxWeights[word] = Math.max(maxWeights[word], weight);
+        }
+
+        // Readers may build it concurrently; they build the same array
+        int[] ranks() {
+            int[] built = ranks;
+            if (built == null) {
+                built = new int[bits.length];
+                int count = 0;
+                for (int word = 0; word < bits.length; word++) {
+                    built[word] = count;
+                    count += Long.bitCount(bits[word]);
+                }
+                ranks = built;
+            }
+            return built;
+        }
+
+        void put(int docId, float weight) {
+            int index = Arrays.binarySearch(docs, 0, size, docId);
+            if (index >= 0) {
+                weights[index] = weight;
+                if (bits != null) {
+                    setBit(docId, weight);
+                }
+                return;
+            }
+            index = -index - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(docs, index, docs, index + 1, size - index);
+            System.arraycopy(weights, index, weights, index + 1, size - index);
+            docs[index] = docId;
+            weights[index] = weight;
+            size++;
+            if (bits != null) {
+                setBit(docId, weight);
+                ranks = null;
+            }
+        }
+
+        void remove(int docId) {
+            int index = Arrays.binarySearch(docs, 0, size, docId);
+            if (index >= 0) {
+                System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+                System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+                size--;
+                if (bits != null) {
+                    bits[docId >>> 6] &= ~(1L << docId);
+                    ranks = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.omniproduct.service.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.omniproduct.service.event.ProductSavedEvent;
+import com.omniproduct.service.event.ProductsDeletedEvent;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Optional;
+
+// In-memory view of the product slugs: a Bloom filter answers "certainly not taken" without
+// touching the database, and a bounded near-cache maps the hot slugs to their product id.
+// Only writes made through ProductService are seen; a slug inserted behind its back is
+// missed until the next rebuild.
+public class SlugIndex {
+
+    private final double falsePositiveProbability;
+    private final long minimumCapacity;
+    private final Cache<String, String> idsBySlug;
+    private final Cache<String, String> slugsById;
+    private final Counter filteredLookups;
+    private final Object filterLock = new Object();
+
+    private volatile BloomFilter filter;
+    private BloomFilter rebuilding;
+    private volatile boolean ready;
+
+    public SlugIndex(long expectedInsertions, double falsePositiveProbability,
+                     Cache<String, String> idsBySlug, Cache<String, String> slugsById,
+                     Counter filteredLookups) {
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.minimumCapacity = expectedInsertions;
+        this.idsBySlug = idsBySlug;
+        this.slugsById = slugsById;
+        this.filteredLookups = filteredLookups;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+    }
+
+    // Until the first rebuild every slug may exist
+    public boolean mightExist(String slug) {
+        if (!ready || filter.mightContain(slug)) {
+            return true;
+        }
+        filteredLookups.increment();
+        return false;
+    }
+
+    public Optional<String> cachedId(String slug) {
+        return Optional.ofNullable(idsBySlug.getIfPresent(slug));
+    }
+
+    // Called before the saving transaction commits, so no reader can see the row while the filter says no
+    public void add(String slug) {
+        synchronized (filterLock) {
+            filter.put(slug);
+            if (rebuilding != null) {
+                rebuilding.put(slug);
+            }
+        }
+    }
+
+    public void cache(String productId, String slug) {
+        String previous = slugsById.getIfPresent(productId);
+        if (previous != null && !previous.equals(slug)) {
+            idsBySlug.asMap().remove(previous, productId);
+        }
+        idsBySlug.put(slug, productId);
+        slugsById.put(productId, slug);
+    }
+
+    public void evict(String slug) {
+        String productId = idsBySlug.getIfPresent(slug);
+        idsBySlug.invalidate(slug);
+        if (productId != null) {
+            slugsById.asMap().remove(productId, slug);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSaved(ProductSavedEvent event) {
+        String slug = event.product().getSlug();
+        if (slug != null) {
+            add(slug);
+            cache(event.product().getId(), slug);
+        }
+    }
+
+    // Deleted slugs stay in the filter until the next rebuild and cost a database lookup meanwhile
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        for (String productId : event.productIds()) {
+            String slug = slugsById.getIfPresent(productId);
+            slugsById.invalidate(productId);
+            if (slug != null) {
+                idsBySlug.asMap().remove(slug, productId);
+            }
+        }
+    }
+
+    // Replaces the filter with one holding exactly the given slugs; adds made meanwhile go to both
+    public void rebuild(long count, Iterator<String> slugs) {
+        BloomFilter next = new BloomFilter(Math.max(minimumCapacity, 2 * count), falsePositiveProbability);
+        synchronized (filterLock) {
+            rebuilding = next;
+        }
+        slugs.forEachRemaining(next::put);
+        synchronized (filterLock) {
+            filter = next;
+            rebuilding = null;
+        }
+        ready = true;
+    }
+}
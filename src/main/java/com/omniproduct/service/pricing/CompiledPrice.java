@@ -0,0 +1,109 @@
+package com.omniproduct.service.pricing;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// The price and discount rules of one product folded into primitives, so pricing a line is a few
+// multiplications without boxing or allocation. Percentages, including those of the promotion codes
+// the quote supplies, multiply, then fixed amounts are taken off the unit price; of the volume
+// discounts, the best one the quantity reaches applies. Amounts are in cents: the unit price is
+// rounded first, then line tax is computed from the line net.
+public final class CompiledPrice {
+
+    private final long version;
+    private final long baseCents;
+    private final double multiplier;
+    private final double amountOffCents;
+    // Ascending thresholds; each multiplier is the best one reachable at that threshold
+    private final int[] volumeThresholds;
+    private final double[] volumeMultipliers;
+    private final String[] codes;
+    private final double[] codeMultipliers;
+    private final double taxRate;
+
+    private CompiledPrice(long version, long baseCents, double multiplier, double amountOffCents,
+                          int[] volumeThresholds, double[] volumeMultipliers, String[] codes,
+                          double[] codeMultipliers, double taxRate) {
+        this.version = version;
+        this.baseCents = baseCents;
+        this.multiplier = multiplier;
+        this.amountOffCents = amountOffCents;
+        this.volumeThresholds = volumeThresholds;
+        this.volumeMultipliers = volumeMultipliers;
+        this.codes = codes;
+        this.codeMultipliers = codeMultipliers;
+        this.taxRate = taxRate;
+    }
+
+    // Without a tax rate, the tax amount is taken as a share of the base price
+    public static CompiledPrice compile(long version, double base, Double tax, Double taxRate,
+                                        List<DiscountRule> rules) {
+        double multiplier = 1;
+        double amountOff = 0;
+        int[] thresholds = new int[rules.size()];
+        double[] multipliers = new double[rules.size()];
+        int volumes = 0;
+        String[] codes = new String[rules.size()];
+        double[] codeMultipliers = new double[rules.size()];
+        int promotions = 0;
+        for (DiscountRule rule : rules) {
+            switch (rule) {
+                case DiscountRule.PercentOff percentOff -> multiplier *= 1 - percentOff.percent() / 100;
+                case DiscountRule.AmountOff amountOffRule -> amountOff += amountOffRule.amount() * 100;
+                case DiscountRule.VolumePercentOff volume -> {
+                    thresholds[volumes] = volume.minQuantity();
+                    multipliers[volumes++] = 1 - volume.percent() / 100;
+                }
+                case DiscountRule.PromotionCode promotion -> {
+                    codes[promotions] = promotion.code();
+                    codeMultipliers[promotions++] = 1 - promotion.percent() / 100;
+                }
+            }
+        }
+        int[] sortedThresholds = new int[volumes];
+        double[] sortedMultipliers = new double[volumes];
+        Integer[] order = new Integer[volumes];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Integer.compare(thresholds[a], thresholds[b]));
+        double best = 1;
+        for (int i = 0; i < volumes; i++) {
+            best = Math.min(best, multipliers[order[i]]);
+            sortedThresholds[i] = thresholds[order[i]];
+            sortedMultipliers[i] = best;
+        }
+        double rate = taxRate != null ? taxRate : tax != null && base > 0 ? tax / base : 0;
+        return new CompiledPrice(version, Math.round(base * 100), multiplier, amountOff, sortedThresholds,
+            sortedMultipliers, Arrays.copyOf(codes, promotions), Arrays.copyOf(codeMultipliers, promotions), rate);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long unitNetCents(int quantity) {
+        return unitNetCents(quantity, Set.of());
+    }
+
+    // The codes are compared as DiscountRule.code normalizes them
+    public long unitNetCents(int quantity, Set<String> suppliedCodes) {
+        double codeMultiplier = 1;
+        for (int i = 0; i < codes.length; i++) {
+            if (suppliedCodes.contains(codes[i])) {
+                codeMultiplier *= codeMultipliers[i];
+            }
+        }
+        double volumeMultiplier = 1;
+        for (int i = volumeThresholds.length - 1; i >= 0; i--) {
+            if (quantity >= volumeThresholds[i]) {
+                volumeMultiplier = volumeMultipliers[i];
+                break;
+            }
+        }
+        return Math.max(0, Math.round(baseCents * multiplier * codeMultiplier * volumeMultiplier - amountOffCents));
+    }
+
+    public long taxCents(long netCents) {
+        return Math.round(netCents * taxRate);
+    }
+}
@@ -0,0 +1,68 @@
+package com.omniproduct.service.pricing;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A discount string of Product.discounts, parsed once. Understood forms, applied to every quote:
+//   "10%"              10 percent off
+//   "-4.99"            fixed amount off the unit price
+//   "3+:15%"           15 percent off from 3 units bought
+// and promotion codes, applied only to quotes that supply the code (case does not matter):
+//   "SUMMER2024:15%"   code SUMMER2024, 15 percent off
+//   "SUMMER10"         code SUMMER10, letters ending with its percentage: 10 percent off
+// Other strings stay on the product but do not change its price.
+public sealed interface DiscountRule {
+
+    record PercentOff(double percent) implements DiscountRule {}
+
+    record AmountOff(double amount) implements DiscountRule {}
+
+    record VolumePercentOff(int minQuantity, double percent) implements DiscountRule {}
+
+    // The code is upper case
+    record PromotionCode(String code, double percent) implements DiscountRule {}
+
+    Pattern PERCENT = Pattern.compile("(\\d{1,3}(?:\\.\\d+)?)\\s*%");
+    Pattern PROMOTION_CODE = Pattern.compile("([A-Za-z][A-Za-z0-9_-]*)\\s*:\\s*(\\d{1,3}(?:\\.\\d+)?)\\s*%");
+    Pattern PERCENT_CODE = Pattern.compile("[A-Za-z][A-Za-z_-]*?(\\d{1,2})");
+    Pattern AMOUNT = Pattern.compile("-\\s*(\\d+(?:\\.\\d{1,2})?)");
+    Pattern VOLUME = Pattern.compile("(\\d+)\\s*\\+\\s*:\\s*(\\d{1,3}(?:\\.\\d+)?)\\s*%");
+
+    static Optional<DiscountRule> parse(String discount) {
+        if (discount == null) {
+            return Optional.empty();
+        }
+        String text = discount.trim();
+        Matcher matcher;
+        if ((matcher = VOLUME.matcher(text)).matches()) {
+            int minQuantity = Integer.parseInt(matcher.group(1));
+            return percent(matcher.group(2)).map(percent -> new VolumePercentOff(Math.max(1, minQuantity), percent));
+        }
+        if ((matcher = PERCENT.matcher(text)).matches()) {
+            return percent(matcher.group(1)).map(PercentOff::new);
+        }
+        if ((matcher = PROMOTION_CODE.matcher(text)).matches()) {
+            String code = code(matcher.group(1));
+            return percent(matcher.group(2)).map(percent -> new PromotionCode(code, percent));
+        }
+        if ((matcher = PERCENT_CODE.matcher(text)).matches()) {
+            return percent(matcher.group(1)).map(percent -> new PromotionCode(code(text), percent));
+        }
+        if ((matcher = AMOUNT.matcher(text)).matches()) {
+            return Optional.of(new AmountOff(Double.parseDouble(matcher.group(1))));
+        }
+        return Optional.empty();
+    }
+
+    // The form codes are compared in, for the codes a quote supplies too
+    static String code(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static Optional<Double> percent(String value) {
+        double percent = Double.parseDouble(value);
+        return percent > 0 && percent <= 100 ? Optional.of(percent) : Optional.empty();
+    }
+}
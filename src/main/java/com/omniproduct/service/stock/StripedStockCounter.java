@@ -0,0 +1,82 @@
+package com.omniproduct.service.stock;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Stock split across stripes so concurrent reservations mostly CAS different cache lines.
+// A reservation first tries the caller's stripe, then gathers from the others; whatever it
+// gathered is given back if the total falls short, so the sum never goes below zero.
+public class StripedStockCounter {
+
+    // 16 ints = 64 bytes between two stripes, one cache line each
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicIntegerArray cells;
+
+    public StripedStockCounter(int stock, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one stripe is needed, got " + stripes);
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+        reset(stock);
+    }
+
+    public boolean tryTake(int quantity) {
+        int home = home();
+        if (takeFrom(home, quantity, true) == quantity) {
+            return true;
+        }
+        int taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            taken += takeFrom((home + i) % stripes, quantity - taken, false);
+        }
+        if (taken < quantity) {
+            add(taken);
+            return false;
+        }
+        return true;
+    }
+
+    public void add(int quantity) {
+        if (quantity != 0) {
+            cells.addAndGet(home() * PADDING, quantity);
+        }
+    }
+
+    // Not atomic across stripes: a snapshot that may mix values from concurrent updates
+    public int sum() {
+        int sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    public synchronized void reset(int stock) {
+        int share = Math.max(stock, 0) / stripes;
+        int rest = Math.max(stock, 0) % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, share + (i < rest ? 1 : 0));
+        }
+    }
+
+    // Takes exactly quantity, or when partial is allowed as much as the stripe holds
+    private int takeFrom(int stripe, int quantity, boolean exact) {
+        int cell = stripe * PADDING;
+        while (true) {
+            int available = cells.get(cell);
+            int take = Math.min(available, quantity);
+            if (take <= 0 || (exact && take < quantity)) {
+                return 0;
+            }
+            if (cells.compareAndSet(cell, available, available - take)) {
+                return take;
+            }
+        }
+    }
+
+    private int home() {
+        return (int) (Thread.currentThread().threadId() % stripes);
+    }
+}
@@ -0,0 +1,20 @@
+package com.omniproduct;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// Empties the Hibernate second-level cache before each test, ahead of the test's own setup.
+// Test contexts share the in-memory database and the JCache regions, but each context recreates
+// the schema, so entries cached by another context can describe rows that no longer exist.
+public class SecondLevelCacheExtension implements BeforeEachCallback {
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        SpringExtension.getApplicationContext(context)
+            .getBean(EntityManagerFactory.class)
+            .getCache()
+            .evictAll();
+    }
+}
@@ -0,0 +1,64 @@
+package com.omniproduct.benchmark;
+
+import com.omniproduct.service.index.ProductFacetIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Catalog aggregates over five million products in the columnar snapshot. Run with: gradle benchmark
+@Tag("benchmark")
+class ProductAnalyticsBenchmark {
+
+    private static final int PRODUCTS = 5_000_000;
+    private static final int RUNS = 10;
+    private static final String[] WAREHOUSES = {"Lyon", "Paris", "Nantes", "Lille", "Marseille", "Bordeaux"};
+    private static final String[] REGIONS = {"Europe", "Asia", "Africa", "America", "Oceania"};
+
+    @Test
+    void aggregatesOverFiveMillionProductsTakeLessThanASecond() {
+        Random random = new Random(42);
+        ProductFacetIndex index = new ProductFacetIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < PRODUCTS; i++) {
+            index.put(new ProductFacetIndex.Row("p" + i,
+                random.nextInt(100) == 0 ? null : 1 + random.nextInt(50_000) / 100.0,
+                random.nextInt(200), 1,
+                random.nextInt(50) == 0 ? null : random.nextDouble() * 30,
+                WAREHOUSES[random.nextInt(WAREHOUSES.length)],
+                List.of(REGIONS[random.nextInt(REGIONS.length)], REGIONS[random.nextInt(REGIONS.length)])));
+        }
+        System.out.printf("indexed %,d products in %,d ms%n", PRODUCTS, (System.nanoTime() - start) / 1_000_000);
+
+        long inventory = bestMillis(index::inventoryByWarehouse);
+        long regions = bestMillis(index::stockByRegion);
+        long histogram = bestMillis(() -> index.kilosHistogram(50));
+
+        System.out.printf("inventory by warehouse: %,d ms%n", inventory);
+        System.out.printf("stock by region:        %,d ms%n", regions);
+        System.out.printf("kilos histogram:        %,d ms%n", histogram);
+        assertThat(index.inventoryByWarehouse().stream().mapToInt(ProductFacetIndex.WarehouseInventory::products).sum())
+            .isEqualTo(PRODUCTS);
+        assertThat(inventory).isLessThan(1_000);
+        assertThat(regions).isLessThan(1_000);
+        assertThat(histogram).isLessThan(1_000);
+    }
+
+    // Best of a few runs after a warm-up, so the JIT and the fork-join pool are up to speed
+    private static long bestMillis(Supplier<?> aggregate) {
+        for (int i = 0; i < 3; i++) {
+            aggregate.get();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            aggregate.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+}
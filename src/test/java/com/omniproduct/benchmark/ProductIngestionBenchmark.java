@@ -0,0 +1,79 @@
+package com.omniproduct.benchmark;
+
+import com.omniproduct.SecondLevelCacheExtension;
+import com.omniproduct.model.Product;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rows per second of the single-item and the bulk save paths. Run with: gradle benchmark
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=false"
+})
+@ExtendWith(SecondLevelCacheExtension.class)
+class ProductIngestionBenchmark {
+
+    private static final int PRODUCTS = 5_000;
+    private static final int WARMUP = 500;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void bulkSaveOutpacesSingleItemSave() {
+        products("warmup-", WARMUP).forEach(productService::save);
+        productService.saveAll(products("warmup-bulk-", WARMUP));
+
+        List<Product> single = products("single-", PRODUCTS);
+        long start = System.nanoTime();
+        single.forEach(productService::save);
+        double singleRate = rowsPerSecond(PRODUCTS, System.nanoTime() - start);
+
+        List<Product> bulk = products("bulk-", PRODUCTS);
+        start = System.nanoTime();
+        int saved = productService.saveAll(bulk).saved();
+        double bulkRate = rowsPerSecond(PRODUCTS, System.nanoTime() - start);
+
+        System.out.printf("single-item save: %,.0f products/s%n", singleRate);
+        System.out.printf("bulk save:        %,.0f products/s (x%.1f)%n", bulkRate, bulkRate / singleRate);
+        assertThat(saved).isEqualTo(PRODUCTS);
+        assertThat(bulkRate).isGreaterThan(singleRate);
+    }
+
+    private static double rowsPerSecond(int rows, long nanos) {
+        return rows / (nanos / 1e9);
+    }
+
+    private static List<Product> products(String prefix, int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new Product(
+                prefix + i, "Product " + i, prefix + "product-" + i,
+                new Product.Price(10.0 + i, 2.0, 0.2),
+                List.of("SUMMER10", "VIP5"),
+                Map.of("main", "image-" + i, "thumb", "thumb-" + i),
+                Map.of("Europe", new Product.Supplier("Supplier" + i, "SIREN" + i, "TVA" + i)),
+                1.5, "10x10x10", 1, 10, new Product.Warehouse("Lyon")))
+            .toList();
+    }
+}
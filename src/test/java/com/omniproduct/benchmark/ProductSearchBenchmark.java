@@ -0,0 +1,83 @@
+package com.omniproduct.benchmark;
+
+import com.omniproduct.service.index.ProductSearchIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Query latency of the search index over a million products. Run with: gradle benchmark
+//
+// The target is under a millisecond at the p99, including the queries pairing two of the most
+// common words, whose postings each cover a fifth of the catalog.
+@Tag("benchmark")
+class ProductSearchBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 20_000;
+    private static final double TARGET_MS = 1.0;
+
+    @Test
+    void queriesAnswerInUnderAMillisecondAtTheP99() {
+        Random random = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(random);
+        }
+
+        ProductSearchIndex index = new ProductSearchIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < PRODUCTS; i++) {
+            String name = words[zipf(random)] + " " + words[zipf(random)] + " " + words[zipf(random)];
+            index.put(new ProductSearchIndex.Document("p" + i, name, name.replace(' ', '-') + "-" + i,
+                List.of("SUMMER10"), List.of(words[random.nextInt(500)])));
+        }
+        System.out.printf("indexed %,d products in %,d ms%n", PRODUCTS, (System.nanoTime() - start) / 1_000_000);
+
+        // Warmed up on as many other queries, so that the JIT is done compiling before measuring
+        for (String query : queries(random, words)) {
+            index.search(query, 20);
+        }
+        String[] queries = queries(random, words);
+
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long queryStart = System.nanoTime();
+            index.search(queries[i], 20);
+            latencies[i] = System.nanoTime() - queryStart;
+        }
+        Arrays.sort(latencies);
+        double p50 = latencies[QUERIES / 2] / 1e6;
+        double p99 = latencies[QUERIES * 99 / 100] / 1e6;
+        System.out.printf("search latency: p50 %.3f ms, p99 %.3f ms%n", p50, p99);
+        assertThat(p99).isLessThan(TARGET_MS);
+    }
+
+    // Two whole words, or one word and a prefix of three letters or more
+    private static String[] queries(Random random, String[] words) {
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String second = words[zipf(random)];
+            queries[i] = words[zipf(random)] + " " + (random.nextBoolean() ? second : second.substring(0, 3));
+        }
+        return queries;
+    }
+
+    // Word ranks skewed like natural language: a few very common words, a long tail of rare ones
+    private static int zipf(Random random) {
+        return (int) Math.min(VOCABULARY - 1, Math.floor(Math.pow(VOCABULARY, random.nextDouble())) - 1);
+    }
+
+    private static String word(Random random) {
+        char[] letters = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
@@ -0,0 +1,181 @@
+package com.omniproduct.benchmark;
+
+import com.omniproduct.OmniProductApplication;
+import com.omniproduct.infrastructure.adapter.ImpactCo2StubServer;
+import com.omniproduct.model.Product;
+import com.omniproduct.service.ProductService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Throughput and latency of a mix of product reads and carbon calculations, served once on
+// Tomcat's platform thread pool and once on virtual threads. ImpactCO2 is replaced by a local
+// stub answering after a fixed delay, so carbon requests block their request thread meanwhile.
+// Run with: gradle benchmark
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+    private static final int PRODUCTS = 1_000;
+    private static final int CLIENTS = 400;
+    private static final int PLATFORM_THREADS = 50;
+    // One request in CARBON_EVERY is a carbon calculation, the others read a product
+    private static final int CARBON_EVERY = 4;
+    private static final Duration STUB_LATENCY = Duration.ofMillis(100);
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    @Test
+    void virtualThreadsServeMoreRequestsWhileCallsBlock() throws Exception {
+        Result platform;
+        Result virtual;
+        try (ImpactCo2StubServer stub = new ImpactCo2StubServer()) {
+            stub.latency(STUB_LATENCY);
+            platform = run(false, stub);
+            virtual = run(true, stub);
+        }
+
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-8s %,8.0f requests/s, %d errors%n", result.mode(), result.throughput(), result.errors());
+            result.latencies().forEach((endpoint, nanos) -> System.out.printf(
+                "         %-8s p50 %6.1f ms  p99 %7.1f ms  max %7.1f ms  (%,d requests)%n",
+                endpoint, percentile(nanos, 0.50), percentile(nanos, 0.99), percentile(nanos, 1.0), nanos.length));
+        }
+        assertThat(virtual.errors()).isZero();
+        assertThat(virtual.throughput()).isGreaterThan(platform.throughput());
+    }
+
+    private static Result run(boolean virtualThreads, ImpactCo2StubServer stub) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        // Command line arguments, so they win over the test configuration
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(OmniProductApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + PLATFORM_THREADS,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--omniproduct.footprint.enabled=false",
+                "--omniproduct.carbon.provider=impact-co2",
+                "--omniproduct.carbon.impact-co2.base-url=" + stub.baseUrl(),
+                "--omniproduct.carbon.impact-co2.pool.max-connections=" + CLIENTS,
+                "--omniproduct.carbon.cache.enabled=false",
+                "--omniproduct.carbon.coalescing.enabled=false",
+                "--omniproduct.carbon.fallback.enabled=false",
+                "--omniproduct.carbon.resilience.enabled=false",
+                "--omniproduct.carbon.batch.max-concurrency=" + CLIENTS);
+             HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            context.getBean(ProductService.class).saveAll(products());
+            URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+
+            long warmupEnd = System.nanoTime() + WARMUP.toNanos();
+            long end = warmupEnd + MEASUREMENT.toNanos();
+            List<Future<ClientLatencies>> clients = new ArrayList<>(CLIENTS);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < CLIENTS; i++) {
+                    clients.add(executor.submit(() -> drive(client, base, warmupEnd, end)));
+                }
+            }
+
+            ClientLatencies total = new ClientLatencies();
+            for (Future<ClientLatencies> result : clients) {
+                total.addAll(result.get());
+            }
+            Map<String, long[]> latencies = new TreeMap<>();
+            total.byEndpoint.forEach((endpoint, nanos) ->
+                latencies.put(endpoint, nanos.stream().mapToLong(Long::longValue).sorted().toArray()));
+            int completed = total.byEndpoint.values().stream().mapToInt(List::size).sum();
+            return new Result(mode, completed / (MEASUREMENT.toNanos() / 1e9), latencies, total.errors);
+        }
+    }
+
+    // Closed loop: each client sends its next request as soon as the previous one is answered;
+    // only requests sent after the warmup are recorded
+    private static ClientLatencies drive(HttpClient client, URI base, long warmupEnd, long end) throws Exception {
+        ClientLatencies latencies = new ClientLatencies();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long sent;
+        while ((sent = System.nanoTime()) < end) {
+            boolean carbon = random.nextInt(CARBON_EVERY) == 0;
+            HttpRequest request = carbon ? carbonRequest(base, random) : productRequest(base, random);
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            long elapsed = System.nanoTime() - sent;
+            if (sent < warmupEnd || sent + elapsed > end) {
+                continue;
+            }
+            if (response.statusCode() != 200) {
+                latencies.errors++;
+            } else {
+                latencies.byEndpoint.computeIfAbsent(carbon ? "carbon" : "product", e -> new ArrayList<>()).add(elapsed);
+            }
+        }
+        return latencies;
+    }
+
+    private static HttpRequest productRequest(URI base, Random random) {
+        return HttpRequest.newBuilder(base.resolve("/api/products/load-" + random.nextInt(PRODUCTS)))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+    }
+
+    // Distinct distances, so no request is answered from a cache
+    private static HttpRequest carbonRequest(URI base, Random random) {
+        String body = String.format(Locale.ROOT, "[{\"transportMode\":\"road\",\"distanceKm\":%.3f,\"weightKg\":10.0}]",
+            100 + random.nextDouble() * 900);
+        return HttpRequest.newBuilder(base.resolve("/api/transport/emissions/batch"))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = Math.max((int) Math.ceil(percentile * sortedNanos.length) - 1, 0);
+        return sortedNanos[index] / 1e6;
+    }
+
+    private static List<Product> products() {
+        return IntStream.range(0, PRODUCTS)
+            .mapToObj(i -> new Product(
+                "load-" + i, "Product " + i, "load-product-" + i,
+                new Product.Price(10.0 + i, 2.0, 0.2),
+                List.of("SUMMER10"),
+                Map.of("main", "image-" + i),
+                Map.of("Europe", new Product.Supplier("Supplier" + i, "SIREN" + i, "TVA" + i)),
+                1.5, "10x10x10", 1, 10, new Product.Warehouse("Lyon")))
+            .toList();
+    }
+
+    private static final class ClientLatencies {
+        final Map<String, List<Long>> byEndpoint = new HashMap<>();
+        int errors;
+
+        void addAll(ClientLatencies other) {
+            other.byEndpoint.forEach((endpoint, nanos) ->
+                byEndpoint.computeIfAbsent(endpoint, e -> new ArrayList<>()).addAll(nanos));
+            errors += other.errors;
+        }
+    }
+
+    private record Result(
+        String mode,
+        double throughput,
+        Map<String, long[]> latencies,
+        int errors
+    ) {}
+}
@@ -0,0 +1,157 @@
+package com.omniproduct.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.SecondLevelCacheExtension;
+import com.omniproduct.model.ImportProgress;
+import com.omniproduct.model.Product;
+import com.omniproduct.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ExtendWith(SecondLevelCacheExtension.class)
+@AutoConfigureMockMvc
+class CatalogImportControllerTest {
+
+    private static final Duration JOB_RETENTION = Duration.ofSeconds(1);
+
+    @TempDir
+    static Path importDirectory;
+
+    @DynamicPropertySource
+    static void importProperties(DynamicPropertyRegistry registry) {
+        registry.add("omniproduct.import.directory", importDirectory::toString);
+        registry.add("omniproduct.import.batch-size", () -> 100);
+        registry.add("omniproduct.import.queue-capacity", () -> 2);
+        registry.add("omniproduct.import.read-window", () -> "4KB");
+        registry.add("omniproduct.import.job-retention", () -> JOB_RETENTION);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldImportNdjsonAndReportRejectedLines() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            lines.add(objectMapper.writeValueAsString(new Product(
+                "n%04d".formatted(i), "Product " + i, "ndjson-" + i,
+                new Product.Price(10.0, 2.0, 0.2), List.of("VIP5"), Map.of("main", "image-" + i),
+                Map.of(), 1.5, "10x10x10", 1, 10, new Product.Warehouse("Lyon"))));
+        }
+        lines.add(500, "{not json");
+        lines.add(700, "{\"id\":\"n-nameless\",\"slug\":\"nameless\"}");
+        Files.write(importDirectory.resolve("catalog.ndjson"), lines);
+
+        ImportProgress progress = runImport("{\"file\":\"catalog.ndjson\"}");
+
+        assertThat(progress.state()).isEqualTo(ImportProgress.State.COMPLETED);
+        assertThat(progress.recordsRead()).isEqualTo(1_002);
+        assertThat(progress.saved()).isEqualTo(1_000);
+        assertThat(progress.failed()).isEqualTo(2);
+        assertThat(progress.errors()).anyMatch(error -> error.startsWith("line 501:"));
+        assertThat(progress.errors()).anyMatch(error -> error.contains("n-nameless"));
+        assertThat(progress.bytesRead()).isEqualTo(progress.totalBytes());
+        assertThat(productRepository.count()).isEqualTo(1_000);
+    }
+
+    @Test
+    void shouldImportCsvFollowingTheProductLayout() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("id,name,slug,price.base,price.tax,price.tax_rate,discounts,images,weight,dimensions,quantity,stock,warehouse.location");
+        lines.add("c1,\"Lamp, blue\",lamp-blue,25.0,5.0,0.2,SUMMER10|VIP5,main=https://img/1|thumb=https://img/2,1.2,20x20x40,1,30,Lyon");
+        IntStream.range(2, 250).forEach(i -> lines.add("c" + i + ",Chair " + i + ",chair-" + i + ",40,8,0.2,,,5,,1,3,Paris"));
+        lines.add("c999,Broken,broken,forty,8,0.2,,,5,,1,3,Paris");
+        Files.write(importDirectory.resolve("catalog.csv"), lines);
+
+        ImportProgress progress = runImport("{\"file\":\"catalog.csv\"}");
+
+        assertThat(progress.state()).isEqualTo(ImportProgress.State.COMPLETED);
+        assertThat(progress.saved()).isEqualTo(249);
+        assertThat(progress.errors()).containsExactly("line 251: Column price.base is not a number: forty");
+        mockMvc.perform(get("/api/products/c1"))
+            .andExpect(jsonPath("$.name").value("Lamp, blue"))
+            .andExpect(jsonPath("$.price.taxRate").value(0.2))
+            .andExpect(jsonPath("$.discounts.length()").value(2))
+            .andExpect(jsonPath("$.images.thumb").value("https://img/2"))
+            .andExpect(jsonPath("$.kilos").value(1.2))
+            .andExpect(jsonPath("$.warehouse.location").value("Lyon"));
+    }
+
+    @Test
+    void shouldRefuseFilesOutsideTheImportDirectory() throws Exception {
+        mockMvc.perform(post("/api/products/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"file\":\"../../etc/passwd\",\"format\":\"CSV\"}"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/import/unknown-job"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldForgetFinishedJobsAfterTheRetention() throws Exception {
+        Files.write(importDirectory.resolve("small.csv"), List.of(
+            "id,name,slug,price.base,price.tax,price.tax_rate,discounts,images,weight,dimensions,quantity,stock,warehouse.location",
+            "r1,Stool,stool,15,3,0.2,,,2,,1,5,Lyon"));
+
+        ImportProgress progress = runImport("{\"file\":\"small.csv\"}");
+        assertThat(progress.state()).isEqualTo(ImportProgress.State.COMPLETED);
+
+        Thread.sleep(JOB_RETENTION.plusMillis(500).toMillis());
+        mockMvc.perform(get("/api/products/import/" + progress.jobId()))
+            .andExpect(status().isNotFound());
+    }
+
+    private ImportProgress runImport(String request) throws Exception {
+        String location = mockMvc.perform(post("/api/products/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(request))
+            .andExpect(status().isAccepted())
+            .andReturn().getResponse().getHeader("Location");
+
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+        while (true) {
+            String body = mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+            ImportProgress progress = objectMapper.readValue(body, ImportProgress.class);
+            if (progress.state() != ImportProgress.State.RUNNING || Instant.now().isAfter(deadline)) {
+                return progress;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
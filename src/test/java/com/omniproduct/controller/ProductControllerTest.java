@@ -1,21 +1,29 @@
 package com.omniproduct.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.SecondLevelCacheExtension;
 import com.omniproduct.model.Product;
+import com.omniproduct.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
+@ExtendWith(SecondLevelCacheExtension.class)
 @AutoConfigureMockMvc
 public class ProductControllerTest {
 
@@ -25,6 +33,14 @@ public class ProductControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+    }
+
     @Test
     public void testCrudOperations() throws Exception {
         Product.Price price = new Product.Price(100.0, 20.0, 0.2);
@@ -90,4 +106,293 @@ public class ProductControllerTest {
         mockMvc.perform(get("/api/products/p1"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void testKeysetPaginationAndStreaming() throws Exception {
+        for (String id : List.of("p3", "p1", "p2")) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName("Product " + id);
+            product.setSlug("product-" + id);
+            mockMvc.perform(post("/api/products")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(product)))
+                    .andExpect(status().isOk());
+        }
+
+        // First page
+        mockMvc.perform(get("/api/products/page").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value("p1"))
+                .andExpect(jsonPath("$.items[1].id").value("p2"))
+                .andExpect(jsonPath("$.nextCursor").value("p2"));
+
+        // Last page
+        mockMvc.perform(get("/api/products/page").param("after", "p2").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value("p3"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        // NDJSON stream
+        MvcResult streamed = mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(streamed))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+
+        List<String> lines = streamed.getResponse().getContentAsString().lines().toList();
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readValue(lines.get(0), Product.class).getId())
+                .isEqualTo("p1");
+    }
+
+    @Test
+    public void testSlugResolutionAndConflict() throws Exception {
+        Product product = new Product();
+        product.setId("s1");
+        product.setName("Slugged");
+        product.setSlug("slugged-product");
+        mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/products/slug/slugged-product"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("s1"));
+
+        mockMvc.perform(get("/api/products/slug/never-created"))
+                .andExpect(status().isNotFound());
+
+        // Same slug on another product
+        product.setId("s2");
+        mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isConflict());
+
+        // Renaming the slug frees the old one
+        product.setId("s1");
+        product.setSlug("renamed-product");
+        mockMvc.perform(put("/api/products/s1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/slug/slugged-product"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/products/slug/renamed-product"))
+                .andExpect(jsonPath("$.id").value("s1"));
+    }
+
+    @Test
+    public void testBatchCreateReportsPerItemFailures() throws Exception {
+        Product existing = new Product();
+        existing.setId("b0");
+        existing.setName("Existing");
+        existing.setSlug("existing");
+        mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(existing)))
+                .andExpect(status().isOk());
+
+        List<Map<String, Object>> batch = List.of(
+                Map.of("id", "b1", "name", "First", "slug", "first", "discounts", List.of("VIP5")),
+                Map.of("id", "b2", "slug", "nameless"),
+                Map.of("id", "b3", "name", "Taken", "slug", "existing"),
+                Map.of("id", "b0", "name", "Existing renamed", "slug", "existing"),
+                Map.of("id", "b4", "name", "Second", "slug", "first"));
+
+        mockMvc.perform(post("/api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saved").value(2))
+                .andExpect(jsonPath("$.failures.length()").value(3))
+                .andExpect(jsonPath("$.failures[0].index").value(1))
+                .andExpect(jsonPath("$.failures[0].error").value("Product name is missing"))
+                .andExpect(jsonPath("$.failures[1].index").value(2))
+                .andExpect(jsonPath("$.failures[1].id").value("b3"))
+                .andExpect(jsonPath("$.failures[2].index").value(4));
+
+        mockMvc.perform(get("/api/products/b0"))
+                .andExpect(jsonPath("$.name").value("Existing renamed"));
+        mockMvc.perform(get("/api/products/slug/first"))
+                .andExpect(jsonPath("$.id").value("b1"))
+                .andExpect(jsonPath("$.discounts[0]").value("VIP5"));
+    }
+
+    @Test
+    public void testBatchCreateIsolatesDatabaseFailures() throws Exception {
+        // Written behind the service's back, so only the unique constraint can catch the clash
+        Product hidden = new Product();
+        hidden.setId("h0");
+        hidden.setName("Hidden");
+        hidden.setSlug("hidden-slug");
+        productRepository.save(hidden);
+
+        List<Map<String, Object>> batch = List.of(
+                Map.of("id", "h1", "name", "Fine", "slug", "fine-slug"),
+                Map.of("id", "h2", "name", "Clash", "slug", "hidden-slug"),
+                Map.of("id", "h3", "name", "Also fine", "slug", "also-fine"));
+
+        mockMvc.perform(post("/api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saved").value(2))
+                .andExpect(jsonPath("$.failures.length()").value(1))
+                .andExpect(jsonPath("$.failures[0].id").value("h2"));
+
+        assertThat(productRepository.findAllById(List.of("h1", "h2", "h3")))
+                .extracting(Product::getId).containsExactlyInAnyOrder("h1", "h3");
+    }
+
+    @Test
+    public void testSearchFollowsSavesAndDeletes() throws Exception {
+        List<Map<String, Object>> batch = List.of(
+                Map.of("id", "f1", "name", "Oak Desk", "slug", "oak-desk",
+                        "suppliersRegions", Map.of("Europe", Map.of("name", "Woodworks"))),
+                Map.of("id", "f2", "name", "Oak Shelf", "slug", "oak-shelf"));
+        mockMvc.perform(post("/api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(jsonPath("$.saved").value(2));
+
+        mockMvc.perform(get("/api/products/search").param("q", "oak de"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.hits[0].productId").value("f1"))
+                .andExpect(jsonPath("$.hits[0].name").value("Oak Desk"));
+        mockMvc.perform(get("/api/products/search").param("q", "woodworks"))
+                .andExpect(jsonPath("$.hits[0].productId").value("f1"));
+
+        mockMvc.perform(delete("/api/products/f1"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/products/search").param("q", "oak"))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.hits[0].productId").value("f2"));
+    }
+
+    @Test
+    public void testFacetsFollowSavesAndDeletes() throws Exception {
+        List<Map<String, Object>> batch = List.of(
+                Map.of("id", "g1", "name", "Cedar Bench", "slug", "cedar-bench", "stock", 4,
+                        "price", Map.of("base", 30.0), "warehouse", Map.of("location", "Facet-North"),
+                        "suppliersRegions", Map.of("Europe", Map.of("name", "Woodworks"))),
+                Map.of("id", "g2", "name", "Cedar Stool", "slug", "cedar-stool", "stock", 0,
+                        "price", Map.of("base", 12.0), "warehouse", Map.of("location", "Facet-North")),
+                Map.of("id", "g3", "name", "Cedar Chest", "slug", "cedar-chest", "stock", 2,
+                        "price", Map.of("base", 90.0), "warehouse", Map.of("location", "Facet-South")));
+        mockMvc.perform(post("/api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(jsonPath("$.saved").value(3));
+
+        mockMvc.perform(get("/api/products/facets")
+                        .param("warehouse", "Facet-North", "Facet-South")
+                        .param("inStock", "true")
+                        .param("maxPrice", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.productIds[0]").value("g1"))
+                .andExpect(jsonPath("$.warehouses.Facet-North").value(1))
+                .andExpect(jsonPath("$.availability.outOfStock").value(1))
+                .andExpect(jsonPath("$.regions.Europe").value(1));
+
+        mockMvc.perform(delete("/api/products/g1"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/products/facets").param("warehouse", "Facet-North"))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.productIds[0]").value("g2"));
+    }
+
+    @Test
+    public void testPatchIsConditionalOnVersion() throws Exception {
+        mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("id", "v1", "name", "Walnut Tray", "slug", "walnut-tray",
+                        "price", Map.of("base", 20.0, "tax", 4.0)))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("id", "v2", "name", "Walnut Bowl", "slug", "walnut-bowl"))))
+                .andExpect(status().isOk());
+
+        String etag = mockMvc.perform(get("/api/products/v1"))
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(patch("/api/products/v1")
+                .contentType("application/merge-patch+json")
+                .header("If-Match", etag)
+                .content("{\"name\": \"Walnut Serving Tray\", \"price\": {\"tax\": null}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Walnut Serving Tray"))
+                .andExpect(jsonPath("$.slug").value("walnut-tray"))
+                .andExpect(jsonPath("$.price.base").value(20.0))
+                .andExpect(jsonPath("$.price.tax").doesNotExist())
+                .andExpect(header().string("ETag", not(etag)));
+
+        // The first patch moved the version on
+        mockMvc.perform(patch("/api/products/v1")
+                .contentType("application/merge-patch+json")
+                .header("If-Match", etag)
+                .content("{\"name\": \"Stale\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/products/v1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", etag)
+                .content(objectMapper.writeValueAsString(Map.of("name", "Stale", "slug", "walnut-tray"))))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch("/api/products/v1")
+                .contentType("application/merge-patch+json")
+                .content("{\"slug\": \"walnut-bowl\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/api/products/v1")
+                .contentType("application/merge-patch+json")
+                .content("{\"supplier\": {}}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/products/missing")
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"Ghost\"}"))
+                .andExpect(status().isNotFound());
+
+        assertThat(productRepository.findById("v1")).get()
+                .extracting(Product::getName).isEqualTo("Walnut Serving Tray");
+    }
+
+    @Test
+    public void testBatchDeleteByIdsAndSlugs() throws Exception {
+        List<Map<String, Object>> batch = List.of(
+                Map.of("id", "d1", "name", "Oak Shelf", "slug", "oak-shelf", "discounts", List.of("VIP5"),
+                        "images", Map.of("main", "oak-shelf.png")),
+                Map.of("id", "d2", "name", "Oak Desk", "slug", "oak-desk"),
+                Map.of("id", "d3", "name", "Oak Chair", "slug", "oak-chair"));
+        mockMvc.perform(post("/api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(jsonPath("$.saved").value(3));
+
+        mockMvc.perform(post("/api/products/batch/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                        "ids", List.of("d1", "missing"), "slugs", List.of("oak-desk", "oak-shelf", "no-such-slug")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.notFound[0]").value("missing"))
+                .andExpect(jsonPath("$.notFound[1]").value("no-such-slug"));
+
+        mockMvc.perform(get("/api/products/d1")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/products/slug/oak-desk")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/products/d3")).andExpect(status().isOk());
+        mockMvc.perform(delete("/api/products/d1")).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/products/d3")).andExpect(status().isNoContent());
+        assertThat(productRepository.count()).isZero();
+    }
 }
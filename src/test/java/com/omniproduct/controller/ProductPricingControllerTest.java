@@ -0,0 +1,70 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.SecondLevelCacheExtension;
+import com.omniproduct.model.Product;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ExtendWith(SecondLevelCacheExtension.class)
+@AutoConfigureMockMvc
+class ProductPricingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        productService.save(new Product("quote-1", "Quoted", "quoted", new Product.Price(100.0, 20.0, 0.2),
+            List.of("10%", "TOP10", "VIP5", "SUMMER2024:15%", "SUMMER2024"), null, null, 1.0, null, 1, 5,
+            new Product.Warehouse("Lyon")));
+    }
+
+    @Test
+    void shouldApplyOnlyTheUnambiguousDiscountsWithoutCodes() throws Exception {
+        // TOP10 and VIP5 are promotion codes, not automatic percentages
+        quote("[]")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.lines[0].unitPrice").value(90.0))
+            .andExpect(jsonPath("$.total").value(108.0));
+    }
+
+    @Test
+    void shouldApplyThePromotionCodesTheQuoteSupplies() throws Exception {
+        // 100 * 0.90 * 0.85, whatever the case of the code
+        quote("[\"summer2024\"]")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.lines[0].unitPrice").value(76.5));
+        // 100 * 0.90 * 0.95; a code the product does not have changes nothing
+        quote("[\"VIP5\", \"WINTER20\"]")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.lines[0].unitPrice").value(85.5));
+    }
+
+    private ResultActions quote(String codes) throws Exception {
+        return mockMvc.perform(post("/api/products/quote")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"lines\": [{\"productId\": \"quote-1\", \"quantity\": 1}], \"codes\": " + codes + "}"));
+    }
+}
@@ -0,0 +1,275 @@
+package com.omniproduct.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.model.Product;
+import com.omniproduct.model.Supplier;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.repository.SupplierRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Pins the number of SQL statements per read endpoint so N+1 loading cannot creep back in
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductQueryCountTest {
+
+    // products + discounts + images + suppliers regions
+    private static final long MAX_STATEMENTS_PER_PAGE = 4;
+    // allocationSize of the catalog_changes sequence
+    private static final long CHANGE_OFFSETS_PER_SEQUENCE_CALL = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void listingAllProductsUsesConstantNumberOfQueries() throws Exception {
+        assertConstantQueryCount(get("/api/products"));
+    }
+
+    @Test
+    void listingAPageOfProductsUsesConstantNumberOfQueries() throws Exception {
+        assertConstantQueryCount(get("/api/products/page").param("size", "100"));
+    }
+
+    @Test
+    void streamingProductsUsesConstantNumberOfQueries() throws Exception {
+        createProducts(0, 5);
+        long fewProducts = countStreamingStatements();
+
+        createProducts(5, 50);
+        long manyProducts = countStreamingStatements();
+
+        assertThat(fewProducts).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+        assertThat(manyProducts).isEqualTo(fewProducts);
+    }
+
+    @Test
+    void batchCreateSendsJdbcBatches() throws Exception {
+        List<Product> products = IntStream.range(0, 200).mapToObj(ProductQueryCountTest::product).toList();
+        statistics.clear();
+
+        mockMvc.perform(post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(products)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saved").value(200));
+
+        // Existing ids lookup, two batches for each of the four tables and for the change feed,
+        // whose offsets take a sequence call per batch, plus one when the pool is not aligned
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1 + 2 * 5 + 3);
+        assertThat(productRepository.count()).isEqualTo(200);
+    }
+
+    @Test
+    void patchWritesOnlyWhatChanged() throws Exception {
+        createProducts(0, 1);
+        statistics.clear();
+
+        mockMvc.perform(patch("/api/products/p000")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"price\": {\"base\": 99.0}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price.base").value(99.0))
+                .andExpect(jsonPath("$.price.tax").value(2.0));
+
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        statistics.clear();
+
+        mockMvc.perform(patch("/api/products/p000")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"images\": {\"zoom\": \"zoom-0\", \"thumb\": null}, \"discounts\": [\"SUMMER10\", \"VIP5\", \"NEW\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.images.zoom").value("zoom-0"))
+                .andExpect(jsonPath("$.images.thumb").doesNotExist())
+                .andExpect(jsonPath("$.discounts.length()").value(3));
+
+        // Images and discounts are updated row by row; the product row only gets its version bumped
+        assertThat(statistics.getCollectionUpdateCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(statistics.getCollectionRemoveCount()).isZero();
+    }
+
+    @Test
+    void deletingASupplierUsesConstantNumberOfStatements() throws Exception {
+        long fewProducts = countSupplierDeleteStatements("s-few", 0, 5);
+        assertThat(countSupplierDeleteStatements("s-many", 5, 105)).isEqualTo(fewProducts);
+        assertThat(productRepository.count()).isZero();
+        // Ids lookup, the three collection tables, products, the supplier, then the change feed
+        // rows of the products and of the supplier in one batch
+        assertThat(fewProducts).isLessThanOrEqualTo(1 + 3 + 1 + 1 + 1);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            for (String table : List.of("product_discounts", "product_images", "product_suppliers")) {
+                assertThat(((Number) entityManager.createNativeQuery("select count(*) from " + table)
+                        .getSingleResult()).longValue()).as(table).isZero();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void batchDeleteUsesConstantNumberOfStatements() throws Exception {
+        createProducts(0, 100);
+        List<String> ids = IntStream.range(0, 100).mapToObj("p%03d"::formatted).toList();
+        statistics.clear();
+
+        mockMvc.perform(post("/api/products/batch/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", ids))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(100));
+
+        // Ids lookup, the three collection tables, products, then the change feed row and its offset
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1 + 3 + 1 + 1 + 1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(productRepository.count()).isZero();
+    }
+
+    @Test
+    void quotingACartUsesOneQueryOnceRulesAreCompiled() throws Exception {
+        createProducts(0, 300);
+        List<Map<String, Object>> lines = IntStream.range(0, 300)
+                .mapToObj(i -> Map.<String, Object>of("productId", "p%03d".formatted(i), "quantity", 2))
+                .toList();
+        RequestBuilder quote = post("/api/products/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("lines", lines, "codes", List.of("SUMMER10", "VIP5"))));
+
+        // Prices, then the discounts of the products not compiled yet
+        assertThat(countStatements(quote)).isEqualTo(2);
+        assertThat(countStatements(quote)).isEqualTo(1);
+
+        mockMvc.perform(post("/api/products/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lines\": [{\"productId\": \"p000\", \"quantity\": 2}, {\"productId\": \"nope\", \"quantity\": 1}],"
+                                + " \"codes\": [\"SUMMER10\", \"VIP5\"]}"))
+                .andExpect(status().isOk())
+                // 10.00 * 0.90 * 0.95 = 8.55 a unit, tax at 20%
+                .andExpect(jsonPath("$.lines[0].unitPrice").value(8.55))
+                .andExpect(jsonPath("$.lines[0].net").value(17.1))
+                .andExpect(jsonPath("$.lines[0].tax").value(3.42))
+                .andExpect(jsonPath("$.total").value(20.52))
+                .andExpect(jsonPath("$.unpriced[0]").value("nope"));
+    }
+
+    private long countSupplierDeleteStatements(String supplierId, int from, int to) throws Exception {
+        Supplier supplier = supplierRepository.save(
+                new Supplier(supplierId, "Supplier " + supplierId, null, null, "France", "Bretagne"));
+        productRepository.saveAll(IntStream.range(from, to).mapToObj(i -> {
+            Product product = product(i);
+            product.setSupplier(supplier);
+            return product;
+        }).toList());
+        long offsetsBefore = changeSequenceValue();
+        statistics.clear();
+        mockMvc.perform(delete("/api/suppliers/" + supplierId)).andExpect(status().isNoContent());
+        long statements = statistics.getPrepareStatementCount();
+        // Whether the change feed offsets needed a sequence call depends on the changes made
+        // before, not on the number of products, so it is left out
+        return statements - (changeSequenceValue() - offsetsBefore) / CHANGE_OFFSETS_PER_SEQUENCE_CALL;
+    }
+
+    private long changeSequenceValue() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return ((Number) entityManager.createNativeQuery(
+                    "select base_value from information_schema.sequences where sequence_name = 'CATALOG_CHANGES_SEQ'")
+                    .getSingleResult()).longValue();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private void assertConstantQueryCount(RequestBuilder request) throws Exception {
+        createProducts(0, 5);
+        long fewProducts = countStatements(request);
+
+        createProducts(5, 50);
+        long manyProducts = countStatements(request);
+
+        assertThat(fewProducts).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+        assertThat(manyProducts).isEqualTo(fewProducts);
+    }
+
+    // Measured with a cold second-level cache, the worst case
+    private long countStatements(RequestBuilder request) throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countStreamingStatements() throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+        MvcResult result = mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createProducts(int from, int to) {
+        productRepository.saveAll(IntStream.range(from, to).mapToObj(ProductQueryCountTest::product).toList());
+    }
+
+    private static Product product(int i) {
+        return new Product(
+                "p%03d".formatted(i), "Product " + i, "product-" + i,
+                new Product.Price(10.0 + i, 2.0, 0.2),
+                List.of("SUMMER10", "VIP5"),
+                Map.of("main", "image-" + i, "thumb", "thumb-" + i),
+                Map.of("Europe", new Product.Supplier("Supplier" + i, "SIREN" + i, "TVA" + i)),
+                1.5, "10x10x10", 1, 10, new Product.Warehouse("Lyon"));
+    }
+}
@@ -1,5 +1,6 @@
 package com.omniproduct.controller;
 
+import com.omniproduct.SecondLevelCacheExtension;
 import com.omniproduct.model.Supplier;
 import com.omniproduct.model.Product;
 import com.omniproduct.repository.SupplierRepository;
@@ -7,6 +8,7 @@ import com.omniproduct.repository.ProductRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -14,12 +16,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
+@ExtendWith(SecondLevelCacheExtension.class)
 @AutoConfigureMockMvc
 class SupplierControllerTest {
     
@@ -34,7 +38,7 @@ class SupplierControllerTest {
     
     @Autowired
     private ObjectMapper objectMapper;
-    
+
     @BeforeEach
     void setUp() {
         supplierRepository.deleteAll();
@@ -183,4 +187,30 @@ class SupplierControllerTest {
         mockMvc.perform(get("/api/products/prod1"))
                 .andExpect(status().isNotFound());
     }
+    
+    @Test
+    void shouldGetSuppliersOfProductIncludingRegionalSuppliers() throws Exception {
+        Supplier supplier = new Supplier("sup1", "Supplier A", "contact@suppliera.com", 
+                                        "+33123456789", "France", "Île-de-France");
+        supplierRepository.save(supplier);
+        
+        Product product = new Product();
+        product.setId("prod1");
+        product.setName("Test Product");
+        product.setSlug("test-product");
+        product.setSupplier(supplier);
+        product.setSuppliersRegions(Map.of("Asia", new Product.Supplier("Supplier Asia", "SIREN1", "TVA1")));
+        productRepository.save(product);
+        
+        mockMvc.perform(get("/api/suppliers/product/prod1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value("sup1"));
+        
+        mockMvc.perform(get("/api/suppliers/product/prod1/regions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productId").value("prod1"))
+                .andExpect(jsonPath("$.supplier.name").value("Supplier A"))
+                .andExpect(jsonPath("$.suppliersRegions.Asia.name").value("Supplier Asia"));
+    }
 }
@@ -0,0 +1,97 @@
+package com.omniproduct.controller;
+
+import com.omniproduct.infrastructure.adapter.ImpactCo2StubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "omniproduct.carbon.provider=impact-co2",
+    "omniproduct.carbon.cache.enabled=false",
+    "omniproduct.carbon.coalescing.enabled=false",
+    "omniproduct.carbon.fallback.enabled=false",
+    "omniproduct.carbon.batch.max-lines=2"
+})
+@AutoConfigureMockMvc
+class TransportControllerTest {
+
+    private static final Duration STUB_LATENCY = Duration.ofMillis(500);
+    private static final ImpactCo2StubServer stub = startStub();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void impactCo2(DynamicPropertyRegistry registry) {
+        registry.add("omniproduct.carbon.impact-co2.base-url", stub::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void shouldReleaseTheRequestThreadWhileImpactCo2Answers() throws Exception {
+        stub.latency(STUB_LATENCY);
+
+        long start = System.nanoTime();
+        MvcResult result = mockMvc.perform(post("/api/transport/emissions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"transportMode\":\"road\",\"distanceKm\":100.0,\"weightKg\":10.0}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        Duration handled = Duration.ofNanos(System.nanoTime() - start);
+
+        // The handler returned a pending future instead of waiting for the stub
+        assertThat(handled).isLessThan(STUB_LATENCY);
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transportMode").value("road"))
+            .andExpect(jsonPath("$.co2EquivalentKg").value(greaterThan(0.0)));
+        assertThat(stub.requests()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRefuseABatchOfMoreLinesThanTheLimitWithoutCallingImpactCo2() throws Exception {
+        stub.latency(Duration.ZERO);
+        int requestsBefore = stub.requests();
+        String line = "{\"transportMode\":\"road\",\"distanceKm\":100.0,\"weightKg\":10.0}";
+
+        mockMvc.perform(post("/api/transport/emissions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + line + "," + line + "," + line + "]"))
+            .andExpect(status().isPayloadTooLarge());
+
+        assertThat(stub.requests()).isEqualTo(requestsBefore);
+        mockMvc.perform(post("/api/transport/emissions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + line + "," + line + "]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    private static ImpactCo2StubServer startStub() {
+        try {
+            return new ImpactCo2StubServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
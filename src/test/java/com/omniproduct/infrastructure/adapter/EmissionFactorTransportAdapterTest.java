@@ -0,0 +1,50 @@
+package com.omniproduct.infrastructure.adapter;
+
+import com.omniproduct.domain.exception.TransportCarbonException;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EmissionFactorTransportAdapterTest {
+    
+    private final EmissionFactorTransportAdapter adapter =
+        new EmissionFactorTransportAdapter(new ClassPathResource("emission-factors.csv"));
+    
+    @Test
+    void shouldApplyTheFactorsPerTonneKilometre() {
+        EmissionFactorTransportAdapter table = new EmissionFactorTransportAdapter(new ByteArrayResource("""
+            transport_mode,co2e_kg_per_tonne_km,co2_direct_kg_per_tonne_km
+            road,0.1000,0.0800
+            """.getBytes(StandardCharsets.UTF_8)));
+        
+        TransportCarbonMetrics metrics = table.calculateEmissions(new TransportRequest("road", 500.0, 20.0));
+        
+        assertThat(metrics.co2EquivalentKg()).isCloseTo(1.0, within(1e-9));
+        assertThat(metrics.co2DirectKg()).isCloseTo(0.8, within(1e-9));
+        assertThat(metrics.transportMode()).isEqualTo("road");
+        assertThat(metrics.distance()).isEqualTo(500.0);
+        assertThat(metrics.weight()).isEqualTo(20.0);
+    }
+    
+    @Test
+    void shouldCoverTheModesOfTheDefaultTable() {
+        assertThat(adapter.supportedModes()).contains("road", "rail");
+        for (String mode : adapter.supportedModes()) {
+            TransportCarbonMetrics metrics = adapter.calculateEmissions(new TransportRequest(mode, 100.0, 1000.0));
+            assertThat(metrics.co2EquivalentKg()).isPositive().isGreaterThanOrEqualTo(metrics.co2DirectKg());
+        }
+    }
+    
+    @Test
+    void shouldRejectUnknownTransportMode() {
+        assertThatThrownBy(() -> adapter.calculateEmissions(new TransportRequest("teleport", 10.0, 1.0)))
+            .isInstanceOf(TransportCarbonException.class)
+            .hasMessageContaining("teleport");
+    }
+}
@@ -0,0 +1,126 @@
+package com.omniproduct.infrastructure.adapter;
+
+import com.omniproduct.config.ExternalApiConfiguration;
+import com.omniproduct.config.TransportCarbonProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+// The client as ExternalApiConfiguration builds it, against the local stub
+class ImpactCo2ApiClientTest {
+    
+    private static final ImpactCo2Request REQUEST = new ImpactCo2Request("road", 100.0, 10.0);
+    
+    private final ExternalApiConfiguration configuration = new ExternalApiConfiguration();
+    private ImpactCo2StubServer stub;
+    private ConnectionProvider connectionProvider;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new ImpactCo2StubServer();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+        stub.close();
+    }
+    
+    @Test
+    void shouldNotWaitForTheResponseBeforeReturning() {
+        ImpactCo2ApiClient client = client(Map.of());
+        stub.latency(Duration.ofMillis(300));
+        
+        CompletableFuture<ImpactCo2Response> response = client.calculateEmissionsAsync(REQUEST, Duration.ofSeconds(5));
+        
+        assertThat(response).isNotDone();
+        assertThat(response.join().co2Equivalent()).isPositive();
+    }
+    
+    @Test
+    void shouldFailTheFutureOnceTheTimeoutElapses() {
+        ImpactCo2ApiClient client = client(Map.of());
+        stub.latency(Duration.ofSeconds(3));
+        
+        CompletableFuture<ImpactCo2Response> response = client.calculateEmissionsAsync(REQUEST, Duration.ofMillis(200));
+        
+        assertThatThrownBy(response::join).hasRootCauseInstanceOf(TimeoutException.class);
+    }
+    
+    @Test
+    void shouldQueueRequestsBeyondThePoolAndRejectThemBeyondThePendingAcquireLimit() {
+        ImpactCo2ApiClient client = client(Map.of(
+            "pool.max-connections", "2",
+            "pool.pending-acquire-max-count", "2"));
+        stub.latency(Duration.ofMillis(300));
+        
+        List<CompletableFuture<ImpactCo2Response>> responses = IntStream.range(0, 5)
+            .mapToObj(i -> client.calculateEmissionsAsync(REQUEST, Duration.ofSeconds(5)))
+            .toList();
+        
+        // Two requests hold the connections and two wait for one, the fifth has no room in the queue
+        assertThat(responses.subList(0, 4)).allSatisfy(response -> assertThat(response.join().co2Equivalent()).isPositive());
+        assertThatThrownBy(responses.get(4)::join).hasMessageContaining("Pending acquire queue has reached its maximum size");
+        assertThat(stub.maxConcurrentRequests()).isEqualTo(2);
+        assertThat(stub.requests()).isEqualTo(4);
+    }
+    
+    @Test
+    void shouldGiveUpWaitingForAConnectionAfterThePendingAcquireTimeout() {
+        ImpactCo2ApiClient client = client(Map.of(
+            "pool.max-connections", "1",
+            "pool.pending-acquire-timeout", "100ms"));
+        stub.latency(Duration.ofMillis(500));
+        
+        CompletableFuture<ImpactCo2Response> first = client.calculateEmissionsAsync(REQUEST, Duration.ofSeconds(5));
+        CompletableFuture<ImpactCo2Response> second = client.calculateEmissionsAsync(REQUEST, Duration.ofSeconds(5));
+        
+        assertThatThrownBy(second::join).hasMessageContaining("Pool#acquire(Duration) has been pending for more than");
+        assertThat(first.join().co2Equivalent()).isPositive();
+        assertThat(stub.requests()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldApplyThePerHostLimitBelowThePoolSize() {
+        URI stubUri = URI.create(stub.baseUrl());
+        ImpactCo2ApiClient client = client(Map.of(
+            "pool.max-connections", "10",
+            "pool.max-connections-per-host[" + stubUri.getHost() + ":" + stubUri.getPort() + "]", "1"));
+        stub.latency(Duration.ofMillis(100));
+        
+        List<CompletableFuture<ImpactCo2Response>> responses = IntStream.range(0, 4)
+            .mapToObj(i -> client.calculateEmissionsAsync(REQUEST, Duration.ofSeconds(5)))
+            .toList();
+        
+        assertThat(responses).allSatisfy(response -> assertThat(response.join().co2Equivalent()).isPositive());
+        assertThat(stub.maxConcurrentRequests()).isEqualTo(1);
+    }
+    
+    private ImpactCo2ApiClient client(Map<String, String> impactCo2Properties) {
+        Map<String, String> source = new HashMap<>();
+        source.put("omniproduct.carbon.impact-co2.base-url", stub.baseUrl());
+        impactCo2Properties.forEach((name, value) -> source.put("omniproduct.carbon.impact-co2." + name, value));
+        TransportCarbonProperties properties = new Binder(new MapConfigurationPropertySource(source))
+            .bindOrCreate("omniproduct.carbon", TransportCarbonProperties.class);
+        connectionProvider = configuration.impactCo2ConnectionProvider(properties);
+        return new ImpactCo2ApiClient(configuration.impactCo2WebClient(WebClient.builder(), connectionProvider, properties));
+    }
+}
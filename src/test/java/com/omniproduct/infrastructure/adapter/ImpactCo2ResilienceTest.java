@@ -0,0 +1,142 @@
+package com.omniproduct.infrastructure.adapter;
+
+import com.omniproduct.config.TransportCarbonProperties;
+import com.omniproduct.domain.exception.TransportCarbonException;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.infrastructure.resilience.ResiliencePipeline;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ImpactCo2ResilienceTest {
+    
+    private static final TransportRequest REQUEST = new TransportRequest("road", 100.0, 10.0);
+    
+    private ImpactCo2StubServer stub;
+    private ImpactCo2ApiClient apiClient;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new ImpactCo2StubServer();
+        apiClient = new ImpactCo2ApiClient(WebClient.builder().baseUrl(stub.baseUrl()).build());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+    
+    @Test
+    void shouldOpenCircuitAfterRepeatedErrorsAndFailFast() {
+        ResiliencePipeline pipeline = pipeline(Duration.ofSeconds(2), 10, false);
+        ImpactCo2TransportAdapter adapter = adapter(pipeline);
+        stub.status(500);
+        
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> adapter.calculateEmissions(REQUEST)).isInstanceOf(TransportCarbonException.class);
+        }
+        
+        assertThat(pipeline.circuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> adapter.calculateEmissions(REQUEST))
+            .isInstanceOf(TransportCarbonException.class)
+            .hasMessageContaining("Circuit breaker");
+        assertThat(stub.requests()).isEqualTo(5);
+    }
+    
+    @Test
+    void shouldGiveUpAtTheDeadline() {
+        ImpactCo2TransportAdapter adapter = adapter(pipeline(Duration.ofMillis(300), 10, false));
+        stub.latency(Duration.ofSeconds(3));
+        
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> adapter.calculateEmissions(REQUEST))
+            .isInstanceOf(TransportCarbonException.class)
+            .hasMessageContaining("deadline");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+    
+    @Test
+    void shouldHedgeSlowRequests() {
+        ImpactCo2TransportAdapter adapter = adapter(pipeline(Duration.ofSeconds(5), 10, true));
+        IntStream.range(0, 5).forEach(i -> adapter.calculateEmissions(REQUEST));
+        stub.nextLatency(Duration.ofSeconds(3));
+        
+        long start = System.nanoTime();
+        TransportCarbonMetrics metrics = adapter.calculateEmissions(REQUEST);
+        
+        assertThat(metrics.co2EquivalentKg()).isPositive();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(stub.requests()).isEqualTo(7);
+    }
+    
+    @Test
+    void shouldRejectCallsBeyondTheBulkhead() {
+        ImpactCo2TransportAdapter adapter = adapter(pipeline(Duration.ofSeconds(2), 2, false));
+        stub.latency(Duration.ofMillis(300));
+        
+        List<CompletableFuture<TransportCarbonMetrics>> calls = IntStream.range(0, 3)
+            .mapToObj(i -> adapter.calculateEmissionsAsync(REQUEST))
+            .toList();
+        
+        assertThat(calls.get(2)).isCompletedExceptionally();
+        assertThatThrownBy(calls.get(2)::join).hasMessageContaining("Too many concurrent calls");
+        assertThat(calls.get(0).join().co2EquivalentKg()).isPositive();
+        assertThat(calls.get(1).join().co2EquivalentKg()).isPositive();
+    }
+    
+    @Test
+    void shouldCancelAHedgeLaunchedWhileTheCallCompletes() {
+        ResiliencePipeline pipeline = pipeline(Duration.ofSeconds(2), 2, true);
+        IntStream.range(0, 5).forEach(i -> pipeline.execute(timeout -> CompletableFuture.completedFuture("warmup")).join());
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+        
+        CompletableFuture<String> call = pipeline.execute(timeout -> {
+            if (attempts.getAndIncrement() == 0) {
+                return first;
+            }
+            // The first attempt wins after the hedge saw the call running, before the hedge is registered
+            first.complete("first");
+            return hedge;
+        });
+        
+        assertThat(call.join()).isEqualTo("first");
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!hedge.isDone() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(hedge).isCancelled();
+        // The hedge gave its bulkhead permit back
+        List<CompletableFuture<String>> calls = IntStream.range(0, 2)
+            .mapToObj(i -> pipeline.execute(timeout -> new CompletableFuture<String>()))
+            .toList();
+        assertThat(calls).noneMatch(CompletableFuture::isCompletedExceptionally);
+    }
+    
+    private ImpactCo2TransportAdapter adapter(ResiliencePipeline pipeline) {
+        return new ImpactCo2TransportAdapter(apiClient, pipeline, 10);
+    }
+    
+    private static ResiliencePipeline pipeline(Duration callTimeout, int maxConcurrentCalls, boolean hedging) {
+        return new ResiliencePipeline("impactco2", new TransportCarbonProperties.Resilience(
+            true,
+            callTimeout,
+            new TransportCarbonProperties.CircuitBreaker(50, Duration.ofSeconds(10), 100, 10, 5, Duration.ofMinutes(1), 1),
+            new TransportCarbonProperties.Bulkhead(maxConcurrentCalls),
+            new TransportCarbonProperties.Hedging(hedging, 0.95, 5, Duration.ofMillis(20))
+        ));
+    }
+}
@@ -0,0 +1,94 @@
+package com.omniproduct.infrastructure.adapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local stand-in for the ImpactCO2 transport endpoint with injectable latency and errors
+public class ImpactCo2StubServer implements AutoCloseable {
+    
+    private static final double KG_CO2E_PER_TONNE_KM = 0.096;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Deque<Duration> nextLatencies = new ConcurrentLinkedDeque<>();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile int status = 200;
+    
+    public ImpactCo2StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/v1/transport/emissions", this::handle);
+        server.start();
+    }
+    
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/api/v1";
+    }
+    
+    public int requests() {
+        return requests.get();
+    }
+    
+    // Highest number of requests the stub was handling at the same time
+    public int maxConcurrentRequests() {
+        return maxInFlight.get();
+    }
+    
+    public void latency(Duration latency) {
+        this.latency = latency;
+    }
+    
+    // Applies to the next request only, before falling back to the default latency
+    public void nextLatency(Duration latency) {
+        nextLatencies.add(latency);
+    }
+    
+    public void status(int status) {
+        this.status = status;
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try (exchange) {
+            ImpactCo2Request request = objectMapper.readValue(exchange.getRequestBody(), ImpactCo2Request.class);
+            Duration delay = nextLatencies.poll();
+            Thread.sleep((delay == null ? latency : delay).toMillis());
+            if (status != 200) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            double co2 = request.distanceKm() * request.weightKg() / 1000 * KG_CO2E_PER_TONNE_KM;
+            byte[] body = objectMapper.writeValueAsString(new ImpactCo2Response(
+                co2, co2 * 0.8, request.transportMode(), request.distanceKm(), request.weightKg()))
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client gave up on this exchange
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,126 @@
+package com.omniproduct.infrastructure.adapter;
+
+import com.omniproduct.domain.exception.TransportCarbonException;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.infrastructure.resilience.ResiliencePipeline;
+import io.vavr.control.Try;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ImpactCo2TransportAdapterTest {
+    
+    private static final int MAX_CONCURRENCY = 4;
+    
+    private final StubApiClient apiClient = new StubApiClient();
+    private final ImpactCo2TransportAdapter adapter = new ImpactCo2TransportAdapter(
+        apiClient, ResiliencePipeline.passThrough("impactco2", Duration.ofSeconds(5)), MAX_CONCURRENCY);
+    
+    @Test
+    void shouldSendIdenticalBatchItemsOnce() {
+        TransportRequest road = new TransportRequest("road", 100.0, 10.0);
+        TransportRequest rail = new TransportRequest("rail", 100.0, 10.0);
+        
+        List<Try<TransportCarbonMetrics>> results = adapter.calculateEmissionsBatch(List.of(road, rail, road, road));
+        
+        assertThat(apiClient.calls).hasValue(2);
+        assertThat(results).hasSize(4).allMatch(Try::isSuccess);
+        assertThat(results.get(2).get().transportMode()).isEqualTo("road");
+        assertThat(results.get(1).get().transportMode()).isEqualTo("rail");
+    }
+    
+    @Test
+    void shouldBoundConcurrentCalls() {
+        List<TransportRequest> requests = IntStream.rangeClosed(1, 50)
+            .mapToObj(i -> new TransportRequest("road", (double) i, 10.0))
+            .toList();
+        
+        List<Try<TransportCarbonMetrics>> results = adapter.calculateEmissionsBatch(requests);
+        
+        assertThat(results).hasSize(50).allMatch(Try::isSuccess);
+        assertThat(apiClient.maxInFlight.get()).isBetween(2, MAX_CONCURRENCY);
+    }
+    
+    @Test
+    void shouldReportFailuresPerItem() {
+        List<Try<TransportCarbonMetrics>> results = adapter.calculateEmissionsBatch(List.of(
+            new TransportRequest("road", 100.0, 10.0),
+            new TransportRequest("teleport", 100.0, 10.0)
+        ));
+        
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).isFailure()).isTrue();
+        assertThat(results.get(1).getCause()).isInstanceOf(TransportCarbonException.class);
+    }
+    
+    @Test
+    void shouldCancelTheBatchWhenTheCallerIsInterrupted() throws InterruptedException {
+        List<TransportRequest> requests = IntStream.rangeClosed(1, 200)
+            .mapToObj(i -> new TransportRequest("road", (double) i, 10.0))
+            .toList();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        
+        Thread caller = Thread.ofVirtual().start(() -> {
+            try {
+                adapter.calculateEmissionsBatch(requests);
+            } catch (TransportCarbonException e) {
+                failure.set(e);
+            }
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        Thread.sleep(100);
+        caller.interrupt();
+        caller.join(Duration.ofSeconds(2));
+        
+        assertThat(caller.isAlive()).isFalse();
+        assertThat(failure.get()).isInstanceOf(TransportCarbonException.class).hasMessageContaining("Interrupted");
+        assertThat(interrupted).isTrue();
+        assertThat(apiClient.calls.get()).isLessThan(200);
+    }
+    
+    private static class StubApiClient extends ImpactCo2ApiClient {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        
+        StubApiClient() {
+            super(null);
+        }
+        
+        // Answers on the calling thread, so the adapter's batch threads are the ones in flight
+        @Override
+        public CompletableFuture<ImpactCo2Response> calculateEmissionsAsync(ImpactCo2Request request, Duration timeout) {
+            try {
+                return CompletableFuture.completedFuture(respond(request));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        
+        private ImpactCo2Response respond(ImpactCo2Request request) {
+            calls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                if (request.transportMode().equals("teleport")) {
+                    throw new IllegalStateException("Unknown transport mode");
+                }
+                return new ImpactCo2Response(1.0, 0.8, request.transportMode(), request.distanceKm(), request.weightKg());
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
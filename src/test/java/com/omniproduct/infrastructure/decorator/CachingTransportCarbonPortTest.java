@@ -0,0 +1,84 @@
+package com.omniproduct.infrastructure.decorator;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import io.vavr.control.Try;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CachingTransportCarbonPortTest {
+    
+    // 0.1 kg CO2e per tonne-km
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+    private final TransportCarbonPort remote = request -> {
+        remoteCalls.incrementAndGet();
+        double co2 = request.distanceKm() * request.weightKg() / 1000 * 0.1;
+        return new TransportCarbonMetrics(co2, co2 * 0.8, request.transportMode(),
+                                          request.distanceKm(), request.weightKg());
+    };
+    
+    private final CachingTransportCarbonPort cachingPort = new CachingTransportCarbonPort(
+        remote, Caffeine.newBuilder().maximumSize(100).recordStats().build(), 10.0, 1.0);
+    
+    @Test
+    void shouldAnswerRepeatedRequestsFromCache() {
+        TransportRequest request = new TransportRequest("road", 500.0, 20.0);
+        
+        TransportCarbonMetrics first = cachingPort.calculateEmissions(request);
+        TransportCarbonMetrics second = cachingPort.calculateEmissions(request);
+        
+        assertThat(remoteCalls).hasValue(1);
+        assertThat(second).isEqualTo(first);
+        assertThat(cachingPort.stats().hitCount()).isEqualTo(1);
+        assertThat(cachingPort.stats().missCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldShareBucketAndRescaleToExactRequest() {
+        cachingPort.calculateEmissions(new TransportRequest("road", 500.0, 20.0));
+        
+        TransportCarbonMetrics metrics = cachingPort.calculateEmissions(new TransportRequest("road", 502.0, 20.2));
+        
+        assertThat(remoteCalls).hasValue(1);
+        assertThat(metrics.distance()).isEqualTo(502.0);
+        assertThat(metrics.weight()).isEqualTo(20.2);
+        assertThat(metrics.co2EquivalentKg()).isCloseTo(502.0 * 20.2 / 1000 * 0.1, within(1e-9));
+    }
+    
+    @Test
+    void shouldNotShareBucketsAcrossTransportModes() {
+        cachingPort.calculateEmissions(new TransportRequest("road", 500.0, 20.0));
+        cachingPort.calculateEmissions(new TransportRequest("rail", 500.0, 20.0));
+        
+        assertThat(remoteCalls).hasValue(2);
+    }
+    
+    @Test
+    void shouldNeverRoundSmallRequestsDownToZero() {
+        TransportCarbonMetrics metrics = cachingPort.calculateEmissions(new TransportRequest("road", 2.0, 0.3));
+        
+        assertThat(metrics.distance()).isEqualTo(2.0);
+        assertThat(metrics.co2EquivalentKg()).isCloseTo(2.0 * 0.3 / 1000 * 0.1, within(1e-12));
+    }
+    
+    @Test
+    void shouldOnlySendCacheMissesOfABatch() {
+        cachingPort.calculateEmissions(new TransportRequest("road", 500.0, 20.0));
+        
+        List<Try<TransportCarbonMetrics>> results = cachingPort.calculateEmissionsBatch(List.of(
+            new TransportRequest("road", 500.0, 20.0),
+            new TransportRequest("rail", 500.0, 20.0),
+            new TransportRequest("rail", 501.0, 20.0)
+        ));
+        
+        assertThat(remoteCalls).hasValue(2);
+        assertThat(results).allMatch(Try::isSuccess);
+        assertThat(results.get(2).get().distance()).isEqualTo(501.0);
+    }
+}
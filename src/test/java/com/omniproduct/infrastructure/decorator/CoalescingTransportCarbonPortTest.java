@@ -0,0 +1,82 @@
+package com.omniproduct.infrastructure.decorator;
+
+import com.omniproduct.domain.exception.TransportCarbonException;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CoalescingTransportCarbonPortTest {
+    
+    private static final TransportRequest REQUEST = new TransportRequest("road", 100.0, 10.0);
+    private static final TransportCarbonMetrics METRICS = new TransportCarbonMetrics(0.1, 0.08, "road", 100.0, 10.0);
+    
+    private final List<CompletableFuture<TransportCarbonMetrics>> outbound = new CopyOnWriteArrayList<>();
+    private final TransportCarbonPort remote = new TransportCarbonPort() {
+        @Override
+        public TransportCarbonMetrics calculateEmissions(TransportRequest request) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public CompletableFuture<TransportCarbonMetrics> calculateEmissionsAsync(TransportRequest request) {
+            CompletableFuture<TransportCarbonMetrics> call = new CompletableFuture<>();
+            outbound.add(call);
+            return call;
+        }
+    };
+    
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Counter collapsed = registry.counter("collapsed");
+    private final CoalescingTransportCarbonPort port =
+        new CoalescingTransportCarbonPort(remote, registry.counter("outbound"), collapsed);
+    
+    @Test
+    void shouldShareOneOutboundCallBetweenConcurrentIdenticalRequests() {
+        List<CompletableFuture<TransportCarbonMetrics>> callers = IntStream.range(0, 10)
+            .mapToObj(i -> port.calculateEmissionsAsync(REQUEST))
+            .toList();
+        
+        assertThat(outbound).hasSize(1);
+        assertThat(collapsed.count()).isEqualTo(9);
+        
+        outbound.get(0).complete(METRICS);
+        
+        assertThat(callers).allSatisfy(caller -> assertThat(caller.join()).isEqualTo(METRICS));
+        assertThat(port.inFlightCount()).isZero();
+    }
+    
+    @Test
+    void shouldShareErrorsAndForgetFailedCalls() {
+        CompletableFuture<TransportCarbonMetrics> first = port.calculateEmissionsAsync(REQUEST);
+        CompletableFuture<TransportCarbonMetrics> second = port.calculateEmissionsAsync(REQUEST);
+        
+        outbound.get(0).completeExceptionally(new TransportCarbonException("ImpactCO2 unavailable"));
+        
+        assertThatThrownBy(first::join).hasCauseInstanceOf(TransportCarbonException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(TransportCarbonException.class);
+        
+        port.calculateEmissionsAsync(REQUEST);
+        assertThat(outbound).hasSize(2);
+    }
+    
+    @Test
+    void shouldNotLetOneCallerTimeoutAffectTheOthers() {
+        CompletableFuture<TransportCarbonMetrics> impatient = port.calculateEmissionsAsync(REQUEST);
+        CompletableFuture<TransportCarbonMetrics> patient = port.calculateEmissionsAsync(REQUEST);
+        
+        impatient.cancel(true);
+        outbound.get(0).complete(METRICS);
+        
+        assertThat(patient.join()).isEqualTo(METRICS);
+    }
+}
@@ -0,0 +1,107 @@
+package com.omniproduct.infrastructure.decorator;
+
+import com.omniproduct.domain.exception.TransportCarbonException;
+import com.omniproduct.domain.model.TransportCarbonMetrics;
+import com.omniproduct.domain.model.TransportRequest;
+import com.omniproduct.domain.port.TransportCarbonPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vavr.control.Try;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FallbackTransportCarbonPortTest {
+    
+    private static final TransportRequest REQUEST = new TransportRequest("road", 100.0, 10.0);
+    
+    private final TransportCarbonPort offline = request ->
+        new TransportCarbonMetrics(0.1, 0.08, request.transportMode(), request.distanceKm(), request.weightKg());
+    private final Counter fallbacks = new SimpleMeterRegistry().counter("fallbacks");
+    
+    @Test
+    void shouldFallBackWhenPrimaryFails() {
+        TransportCarbonPort failing = request -> {
+            throw new TransportCarbonException("ImpactCO2 unavailable");
+        };
+        FallbackTransportCarbonPort port = new FallbackTransportCarbonPort(failing, offline, Duration.ofSeconds(1), fallbacks);
+        
+        assertThat(port.calculateEmissions(REQUEST).co2EquivalentKg()).isEqualTo(0.1);
+        assertThat(fallbacks.count()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldFallBackWhenPrimaryIsSlowerThanTimeout() {
+        TransportCarbonPort slow = new TransportCarbonPort() {
+            @Override
+            public TransportCarbonMetrics calculateEmissions(TransportRequest request) {
+                throw new UnsupportedOperationException();
+            }
+            
+            @Override
+            public CompletableFuture<TransportCarbonMetrics> calculateEmissionsAsync(TransportRequest request) {
+                return new CompletableFuture<>();
+            }
+        };
+        FallbackTransportCarbonPort port = new FallbackTransportCarbonPort(slow, offline, Duration.ofMillis(50), fallbacks);
+        
+        assertThat(port.calculateEmissions(REQUEST).co2EquivalentKg()).isEqualTo(0.1);
+        assertThat(port.calculateEmissionsAsync(REQUEST).join().co2EquivalentKg()).isEqualTo(0.1);
+        assertThat(fallbacks.count()).isEqualTo(2);
+    }
+    
+    @Test
+    void shouldFallBackForTheWholeBatchWhenPrimaryIsSlowerThanTimeout() throws InterruptedException {
+        CountDownLatch primaryInterrupted = new CountDownLatch(1);
+        TransportCarbonPort slow = new TransportCarbonPort() {
+            @Override
+            public TransportCarbonMetrics calculateEmissions(TransportRequest request) {
+                throw new UnsupportedOperationException();
+            }
+            
+            @Override
+            public List<Try<TransportCarbonMetrics>> calculateEmissionsBatch(List<TransportRequest> requests) {
+                try {
+                    Thread.sleep(Duration.ofSeconds(10));
+                } catch (InterruptedException e) {
+                    primaryInterrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                throw new TransportCarbonException("Interrupted");
+            }
+        };
+        FallbackTransportCarbonPort port = new FallbackTransportCarbonPort(slow, offline, Duration.ofMillis(50), fallbacks);
+        
+        long start = System.nanoTime();
+        List<Try<TransportCarbonMetrics>> results = port.calculateEmissionsBatch(List.of(REQUEST, REQUEST));
+        
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(results).hasSize(2).allSatisfy(result -> assertThat(result.get().co2EquivalentKg()).isEqualTo(0.1));
+        assertThat(fallbacks.count()).isEqualTo(2);
+        assertThat(primaryInterrupted.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+    
+    @Test
+    void shouldOnlyFallBackForTheBatchLinesPrimaryFailedOn() {
+        TransportCarbonPort primary = request -> {
+            if (request.transportMode().equals("rail")) {
+                throw new TransportCarbonException("ImpactCO2 unavailable");
+            }
+            return new TransportCarbonMetrics(0.5, 0.4, request.transportMode(), request.distanceKm(), request.weightKg());
+        };
+        FallbackTransportCarbonPort port = new FallbackTransportCarbonPort(primary, offline, Duration.ofSeconds(1), fallbacks);
+        
+        List<Try<TransportCarbonMetrics>> results = port.calculateEmissionsBatch(
+            List.of(REQUEST, new TransportRequest("rail", 100.0, 10.0)));
+        
+        assertThat(results.get(0).get().co2EquivalentKg()).isEqualTo(0.5);
+        assertThat(results.get(1).get().co2EquivalentKg()).isEqualTo(0.1);
+        assertThat(fallbacks.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,248 @@
+package com.omniproduct.service;
+
+import com.omniproduct.SecondLevelCacheExtension;
+import com.omniproduct.model.CatalogChange;
+import com.omniproduct.model.ChangePage;
+import com.omniproduct.model.Product;
+import com.omniproduct.repository.CatalogChangeRepository;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.repository.SupplierRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ExtendWith(SecondLevelCacheExtension.class)
+@AutoConfigureMockMvc
+class ChangeFeedServiceTest {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private ProductStockService stockService;
+
+    @Autowired
+    private CatalogChangeRepository changeRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        supplierRepository.deleteAll();
+        start = changeRepository.findMaxId().orElse(0L);
+    }
+
+    @Test
+    void shouldRecordProductAndSupplierChangesInCommitOrder() {
+        supplierService.createSupplier("feed-sup", "Feed Supplier", null, null, "France", "Bretagne");
+        productService.save(product("feed-1", "feed-one"));
+        productService.deleteById("feed-1");
+        supplierService.deleteSupplier("feed-sup");
+
+        ChangePage page = changeFeedService.read(start, 100);
+
+        assertThat(page.items())
+            .extracting(CatalogChange::getEntityType, CatalogChange::getEntityId, CatalogChange::getOperation)
+            .containsExactly(
+                tuple(CatalogChange.EntityType.SUPPLIER, "feed-sup", CatalogChange.Operation.UPSERT),
+                tuple(CatalogChange.EntityType.PRODUCT, "feed-1", CatalogChange.Operation.UPSERT),
+                tuple(CatalogChange.EntityType.PRODUCT, "feed-1", CatalogChange.Operation.DELETE),
+                tuple(CatalogChange.EntityType.SUPPLIER, "feed-sup", CatalogChange.Operation.DELETE));
+        assertThat(page.items().get(1).getPayload()).contains("\"slug\":\"feed-one\"");
+        assertThat(page.items().get(2).getPayload()).isNull();
+        assertThat(page.nextOffset()).isEqualTo(page.items().getLast().getId());
+
+        assertThat(changeFeedService.read(page.nextOffset(), 100).items()).isEmpty();
+    }
+
+    @Test
+    void shouldRecordABulkDeleteAsOneChange() {
+        productService.save(product("feed-4", "feed-four"));
+        productService.save(product("feed-5", "feed-five"));
+        long afterSaves = changeFeedService.read(start, 100).nextOffset();
+
+        productService.deleteAll(List.of("feed-4", "feed-5"), null);
+
+        assertThat(changeFeedService.read(afterSaves, 100).items())
+            .singleElement()
+            .satisfies(change -> {
+                assertThat(change.getOperation()).isEqualTo(CatalogChange.Operation.BULK_DELETE);
+                assertThat(change.getEntityId()).isNull();
+                assertThat(change.getPayload()).isEqualTo("[\"feed-4\",\"feed-5\"]");
+            });
+    }
+
+    @Test
+    void shouldRecordStockReservationsAndReleases() {
+        productService.save(product("feed-6", "feed-six"));
+        stockService.reserve("feed-6", 2);
+        stockService.release("feed-6", 1);
+
+        List<CatalogChange> changes = changeFeedService.read(start, 100).items();
+
+        assertThat(changes)
+            .extracting(CatalogChange::getEntityId, CatalogChange::getOperation)
+            .containsExactly(
+                tuple("feed-6", CatalogChange.Operation.UPSERT),
+                tuple("feed-6", CatalogChange.Operation.STOCK),
+                tuple("feed-6", CatalogChange.Operation.STOCK));
+        assertThat(changes.get(1).getPayload()).isEqualTo("{\"productId\":\"feed-6\",\"stock\":3}");
+        assertThat(changes.get(2).getPayload()).isEqualTo("{\"productId\":\"feed-6\",\"stock\":4}");
+    }
+
+    @Test
+    void shouldNotRecordRolledBackChanges() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.save(product("feed-rollback", "feed-rollback"));
+            status.setRollbackOnly();
+        });
+        productService.save(product("feed-2", "feed-two"));
+
+        assertThat(changeFeedService.read(start, 100).items())
+            .extracting(CatalogChange::getEntityId)
+            .containsExactly("feed-2");
+    }
+
+    @Test
+    void shouldAnswerLongPollAtTheNextCommit() throws Exception {
+        MvcResult poll = mockMvc.perform(get("/api/changes")
+                .param("after", String.valueOf(start))
+                .param("timeout", "10"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        productService.save(product("feed-3", "feed-three"));
+
+        mockMvc.perform(asyncDispatch(poll))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].entityId").value("feed-3"))
+            .andExpect(jsonPath("$.items[0].payload.name").value("Product feed-3"));
+    }
+
+    @Test
+    void shouldHoldBackALaterCommitUntilTheEarlierOffsetCommits() throws Exception {
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread slow = Thread.ofVirtual().start(() ->
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                productService.save(product("feed-slow", "feed-slow"));
+                appended.countDown();
+                try {
+                    commit.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        appended.await();
+
+        // Takes the next offset but commits first: readers must not move past the open one
+        productService.save(product("feed-fast", "feed-fast"));
+        ChangePage held = changeFeedService.read(start, 100);
+
+        commit.countDown();
+        slow.join();
+
+        assertThat(held.items()).isEmpty();
+        assertThat(held.nextOffset()).isEqualTo(start);
+        assertThat(changeFeedService.read(held.nextOffset(), 100).items())
+            .extracting(CatalogChange::getEntityId)
+            .containsExactly("feed-slow", "feed-fast");
+    }
+
+    @Test
+    void shouldResumeAStreamAfterTheLastEventId() throws Exception {
+        productService.save(product("feed-9", "feed-nine"));
+        productService.save(product("feed-10", "feed-ten"));
+        List<CatalogChange> changes = changeFeedService.read(start, 100).items();
+        long seen = changes.get(0).getId();
+        long missed = changes.get(1).getId();
+
+        MvcResult stream = mockMvc.perform(get("/api/changes")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", String.valueOf(seen)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        String events = "";
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!events.contains("id:" + missed + "\n") && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            events = stream.getResponse().getContentAsString();
+        }
+        assertThat(events).contains("id:" + missed + "\n", "event:product\n", "\"entityId\":\"feed-10\"");
+        assertThat(events).doesNotContain("id:" + seen + "\n");
+    }
+
+    @Test
+    void shouldAnswerGoneForAPurgedOffsetAlsoAfterARestart() throws Exception {
+        productService.save(product("feed-7", "feed-seven"));
+        long expired = new TransactionTemplate(transactionManager).execute(status -> changeRepository.save(
+            new CatalogChange(CatalogChange.EntityType.PRODUCT, "feed-7", CatalogChange.Operation.UPSERT,
+                Instant.now().minus(Duration.ofDays(30)), null)).getId());
+        productService.save(product("feed-8", "feed-eight"));
+
+        changeFeedService.purge();
+
+        mockMvc.perform(get("/api/changes").param("after", String.valueOf(start)))
+            .andExpect(status().isGone());
+        assertThat(changeFeedService.read(expired, 100).items())
+            .extracting(CatalogChange::getEntityId)
+            .containsExactly("feed-8");
+
+        // A new instance knows of the purge only from what is left in the table
+        ChangeFeedService restarted = AopTestUtils.getTargetObject(changeFeedService);
+        ReflectionTestUtils.setField(restarted, "purgedThrough", 0L);
+        restarted.loadOffsets();
+
+        mockMvc.perform(get("/api/changes").param("after", String.valueOf(start)))
+            .andExpect(status().isGone());
+        assertThat(changeFeedService.read(expired, 100).items())
+            .extracting(CatalogChange::getEntityId)
+            .containsExactly("feed-8");
+    }
+
+    private static Product product(String id, String slug) {
+        return new Product(id, "Product " + id, slug, new Product.Price(10.0, 2.0, 0.2),
+            List.of("VIP5"), null, null, 1.0, null, 1, 5, new Product.Warehouse("Lyon"));
+    }
+}
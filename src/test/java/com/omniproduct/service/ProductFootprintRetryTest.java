@@ -0,0 +1,66 @@
+package com.omniproduct.service;
+
+import com.omniproduct.SecondLevelCacheExtension;
+import com.omniproduct.model.Product;
+import com.omniproduct.model.ProductFootprint;
+import com.omniproduct.repository.ProductFootprintRepository;
+import com.omniproduct.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+// The offline emission factors have no "teleport" mode, so every product has a line that fails
+@SpringBootTest(properties = "omniproduct.footprint.transport-modes=road,teleport")
+@ExtendWith(SecondLevelCacheExtension.class)
+class ProductFootprintRetryTest {
+
+    @Autowired
+    private ProductFootprintService footprintService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFootprintRepository footprintRepository;
+
+    @BeforeEach
+    void setUp() {
+        footprintService.refreshPending();
+        footprintRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldKeepTheCurrentFootprintAndRetryWhenALineFails() {
+        productService.save(product("retry1"));
+        Instant computedAt = Instant.parse("2026-01-01T00:00:00Z");
+        footprintRepository.save(new ProductFootprint("retry1", "Europe", "road", 700.0, 10.0, 0.5, 0.4, "previous", computedAt));
+
+        footprintService.refreshPending();
+
+        assertThat(footprintRepository.findByProductIdOrderByRegionAscTransportModeAsc("retry1"))
+            .singleElement()
+            .satisfies(footprint -> {
+                assertThat(footprint.getComputedAt()).isEqualTo(computedAt);
+                assertThat(footprint.getFingerprint()).isEqualTo("previous");
+            });
+        assertThat(footprintService.pendingCount()).isEqualTo(1);
+    }
+
+    private static Product product(String id) {
+        return new Product(id, "Product " + id, id + "-slug", new Product.Price(10.0, 2.0, 0.2), List.of(), Map.of(),
+            Map.of("Europe", new Product.Supplier("Supplier Europe", "SIREN", "TVA")), 10.0, "1x1x1", 1, 1,
+            new Product.Warehouse("Lyon"));
+    }
+}
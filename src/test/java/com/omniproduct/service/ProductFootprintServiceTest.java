@@ -0,0 +1,116 @@
+package com.omniproduct.service;
+
+import com.omniproduct.SecondLevelCacheExtension;
+import com.omniproduct.model.Product;
+import com.omniproduct.model.ProductFootprint;
+import com.omniproduct.repository.ProductFootprintRepository;
+import com.omniproduct.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ExtendWith(SecondLevelCacheExtension.class)
+@AutoConfigureMockMvc
+class ProductFootprintServiceTest {
+
+    @Autowired
+    private ProductFootprintService footprintService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFootprintRepository footprintRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        footprintService.refreshPending();
+        footprintRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldMaterializeFootprintPerRegionAndTransportMode() throws Exception {
+        productService.save(product("fp1", "Lamp", 20.0, "Lyon", "Europe", "Asia"));
+        assertThat(footprintService.pendingCount()).isEqualTo(1);
+
+        footprintService.refreshPending();
+
+        List<ProductFootprint> footprints = footprintRepository.findByProductIdOrderByRegionAscTransportModeAsc("fp1");
+        assertThat(footprints).hasSize(8);
+        assertThat(footprints).extracting(ProductFootprint::getRegion).containsOnly("Asia", "Europe");
+        assertThat(footprints).extracting(ProductFootprint::getTransportMode).containsOnly("road", "rail", "sea", "air");
+        assertThat(footprints).filteredOn(f -> f.getRegion().equals("Europe"))
+            .extracting(ProductFootprint::getDistanceKm).containsOnly(700.0);
+        assertThat(footprints).allSatisfy(f -> assertThat(f.getCo2EquivalentKg()).isPositive());
+
+        mockMvc.perform(get("/api/products/fp1/footprint"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(8))
+            .andExpect(jsonPath("$[0].region").value("Asia"));
+    }
+
+    @Test
+    void shouldOnlyRecomputeWhenFootprintInputsChange() {
+        productService.save(product("fp2", "Chair", 10.0, "Lyon", "Europe"));
+        footprintService.refreshPending();
+        ProductFootprint before = road("fp2");
+
+        // A rename does not touch weight, warehouse or regions
+        productService.save(product("fp2", "Armchair", 10.0, "Lyon", "Europe"));
+        footprintService.refreshPending();
+        assertThat(road("fp2").getComputedAt()).isEqualTo(before.getComputedAt());
+
+        productService.save(product("fp2", "Armchair", 20.0, "Lyon", "Europe"));
+        footprintService.refreshPending();
+        assertThat(road("fp2").getCo2EquivalentKg()).isCloseTo(before.getCo2EquivalentKg() * 2, within(1e-9));
+    }
+
+    @Test
+    void shouldDropFootprintOfDeletedProduct() throws Exception {
+        productService.save(product("fp3", "Desk", 30.0, "Paris", "Europe"));
+        footprintService.refreshPending();
+        assertThat(footprintRepository.findByProductIdOrderByRegionAscTransportModeAsc("fp3")).isNotEmpty();
+
+        productService.deleteById("fp3");
+        footprintService.refreshPending();
+
+        assertThat(footprintRepository.findByProductIdOrderByRegionAscTransportModeAsc("fp3")).isEmpty();
+        mockMvc.perform(get("/api/products/fp3/footprint"))
+            .andExpect(status().isNotFound());
+    }
+
+    private ProductFootprint road(String productId) {
+        return footprintRepository.findByProductIdOrderByRegionAscTransportModeAsc(productId).stream()
+            .filter(f -> f.getTransportMode().equals("road"))
+            .findFirst().orElseThrow();
+    }
+
+    private static Product product(String id, String name, double kilos, String warehouse, String... regions) {
+        Map<String, Product.Supplier> suppliersRegions = new HashMap<>();
+        for (String region : regions) {
+            suppliersRegions.put(region, new Product.Supplier("Supplier " + region, "SIREN", "TVA"));
+        }
+        return new Product(id, name, id + "-slug", new Product.Price(10.0, 2.0, 0.2), List.of(), Map.of(),
+            suppliersRegions, kilos, "1x1x1", 1, 1, new Product.Warehouse(warehouse));
+    }
+}
@@ -0,0 +1,297 @@
+package com.omniproduct.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omniproduct.SecondLevelCacheExtension;
+import com.omniproduct.exception.InsufficientStockException;
+import com.omniproduct.model.CatalogChange;
+import com.omniproduct.model.Product;
+import com.omniproduct.model.StockLevel;
+import com.omniproduct.repository.CatalogChangeRepository;
+import com.omniproduct.repository.ProductRepository;
+import com.omniproduct.service.event.ProductStockChangedEvent;
+import com.omniproduct.service.index.ProductFacetIndex;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "omniproduct.stock.hot-products=stock-hot")
+@ExtendWith(SecondLevelCacheExtension.class)
+@AutoConfigureMockMvc
+class ProductStockServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Autowired
+    private ProductStockService stockService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private CatalogChangeRepository changeRepository;
+
+    @Autowired
+    private ProductFacetService facetService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        stockService.flush();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldNotOversellUnderConcurrentReservations() throws Exception {
+        productService.save(product("stock-cold", 100));
+
+        int sold = reserveConcurrently("stock-cold");
+
+        assertThat(sold).isEqualTo(100);
+        assertThat(productRepository.findStockById("stock-cold")).contains(0);
+    }
+
+    @Test
+    void shouldNotOversellHotProductsAndWriteTheNetChangeBehind() throws Exception {
+        productService.save(product("stock-hot", 100));
+
+        int sold = reserveConcurrently("stock-hot");
+        stockService.release("stock-hot", 5);
+
+        assertThat(sold).isEqualTo(100);
+        assertThat(stockService.findStock("stock-hot")).contains(new StockLevel("stock-hot", 5));
+        // Nothing is written until the flush
+        assertThat(productRepository.findStockById("stock-hot")).contains(100);
+
+        stockService.flush();
+        assertThat(productRepository.findStockById("stock-hot")).contains(5);
+    }
+
+    @Test
+    void shouldKeepUnflushedHotReservationsAcrossAPatchOfOtherFields() throws Exception {
+        productService.save(product("stock-hot", 10));
+        stockService.reserve("stock-hot", 3);
+
+        mockMvc.perform(patch("/api/products/stock-hot")
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"Flash sale\"}"))
+            .andExpect(status().isOk());
+
+        assertThat(stockService.findStock("stock-hot")).contains(new StockLevel("stock-hot", 7));
+        stockService.flush();
+        assertThat(productRepository.findStockById("stock-hot")).contains(7);
+    }
+
+    @Test
+    void shouldKeepTheFacetSnapshotOnTheHotCounter() throws Exception {
+        Product product = product("stock-hot", 10);
+        product.setWarehouse(new Product.Warehouse("Hot depot"));
+        productService.save(product);
+        stockService.reserve("stock-hot", 3);
+
+        // The patched row carries the database stock, 3 units behind the counter
+        mockMvc.perform(patch("/api/products/stock-hot")
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"Flash sale\"}"))
+            .andExpect(status().isOk());
+        assertThat(hotDepotUnits()).isEqualTo(7);
+
+        // A flush committing after a later reservation publishes the stock it wrote, 2 units behind
+        stockService.reserve("stock-hot", 2);
+        eventPublisher.publishEvent(new ProductStockChangedEvent("stock-hot", 7));
+        assertThat(hotDepotUnits()).isEqualTo(5);
+
+        stockService.flush();
+        assertThat(hotDepotUnits()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldRestartHotCounterFromAPatchedStock() throws Exception {
+        productService.save(product("stock-hot", 10));
+        stockService.reserve("stock-hot", 3);
+
+        mockMvc.perform(patch("/api/products/stock-hot")
+                .contentType("application/merge-patch+json")
+                .content("{\"stock\": 20}"))
+            .andExpect(status().isOk());
+
+        assertThat(stockService.findStock("stock-hot")).contains(new StockLevel("stock-hot", 20));
+        stockService.flush();
+        assertThat(productRepository.findStockById("stock-hot")).contains(20);
+    }
+
+    @Test
+    void shouldRecordHotStockInTheChangeFeedWhenItIsFlushed() {
+        productService.save(product("stock-hot", 10));
+        long afterSave = changeRepository.findMaxId().orElseThrow();
+
+        stockService.reserve("stock-hot", 3);
+        stockService.reserve("stock-hot", 3);
+        assertThat(changeFeedService.read(afterSave, 100).items()).isEmpty();
+
+        stockService.flush();
+        assertThat(changeFeedService.read(afterSave, 100).items())
+            .extracting(CatalogChange::getEntityId, CatalogChange::getOperation, CatalogChange::getPayload)
+            .containsExactly(tuple("stock-hot", CatalogChange.Operation.STOCK, "{\"productId\":\"stock-hot\",\"stock\":4}"));
+    }
+
+    @Test
+    void shouldRestartHotCounterFromReplacedStock() {
+        productService.save(product("stock-hot", 10));
+        stockService.reserve("stock-hot", 4);
+
+        productService.save(product("stock-hot", 50));
+        stockService.flush();
+
+        assertThat(stockService.findStock("stock-hot")).contains(new StockLevel("stock-hot", 50));
+        assertThat(productRepository.findStockById("stock-hot")).contains(50);
+    }
+
+    @Test
+    void shouldExposeReserveAndReleaseEndpoints() throws Exception {
+        productService.save(product("stock-api", 3));
+
+        mockMvc.perform(post("/api/products/stock-api/stock/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 2}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.stock").value(1));
+        mockMvc.perform(post("/api/products/stock-api/stock/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 2}"))
+            .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/products/stock-api/stock/release")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 4}"))
+            .andExpect(jsonPath("$.stock").value(5));
+        mockMvc.perform(post("/api/products/stock-api/stock/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 0}"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/products/missing/stock/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 1}"))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/products/stock-api/stock"))
+            .andExpect(jsonPath("$.stock").value(5));
+    }
+
+    @Test
+    void shouldRefuseAReplacementBasedOnTheVersionReadBeforeAReservation() throws Exception {
+        productService.save(product("stock-etag", 10));
+        String etag = mockMvc.perform(get("/api/products/stock-etag"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        stockService.reserve("stock-etag", 3);
+
+        mockMvc.perform(put("/api/products/stock-etag")
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product("stock-etag", 10))))
+            .andExpect(status().isPreconditionFailed());
+        assertThat(productRepository.findStockById("stock-etag")).contains(7);
+        mockMvc.perform(get("/api/products/stock-etag"))
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    void shouldOnlyEvictTheUpdatedProductFromTheSecondLevelCache() {
+        productService.save(product("stock-a", 5));
+        productService.save(product("stock-b", 5));
+        productService.findById("stock-a");
+        productService.findById("stock-b");
+        Cache cache = entityManagerFactory.getCache();
+        assertThat(cache.contains(Product.class, "stock-b")).isTrue();
+
+        stockService.reserve("stock-a", 1);
+
+        assertThat(cache.contains(Product.class, "stock-a")).isFalse();
+        assertThat(cache.contains(Product.class, "stock-b")).isTrue();
+        assertThat(productService.findById("stock-a")).hasValueSatisfying(p -> assertThat(p.getStock()).isEqualTo(4));
+    }
+
+    // 400 single-unit reservations against a stock of 100
+    private int reserveConcurrently(String productId) throws Exception {
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        stockService.reserve(productId, 1);
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(sold.get() + rejected.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD);
+        return sold.get();
+    }
+
+    private long hotDepotUnits() {
+        return facetService.inventoryByWarehouse().stream()
+            .filter(inventory -> "Hot depot".equals(inventory.warehouse()))
+            .mapToLong(ProductFacetIndex.WarehouseInventory::units)
+            .sum();
+    }
+
+    private static Product product(String id, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setSlug(id);
+        product.setStock(stock);
+        return product;
+    }
+}
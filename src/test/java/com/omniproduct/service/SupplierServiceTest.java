@@ -1,15 +1,18 @@
 package com.omniproduct.service;
 
+import com.omniproduct.SecondLevelCacheExtension;
 import com.omniproduct.model.Supplier;
 import com.omniproduct.model.Product;
 import com.omniproduct.repository.SupplierRepository;
 import com.omniproduct.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,6 +20,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.*;
 
 @SpringBootTest
+@ExtendWith(SecondLevelCacheExtension.class)
 class SupplierServiceTest {
     
     @Autowired
@@ -28,6 +32,9 @@ class SupplierServiceTest {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void setUp() {
         supplierRepository.deleteAll();
@@ -171,8 +178,6 @@ class SupplierServiceTest {
     }
     
     @Test
-    @Disabled // see LAZY_LOADING_ISSUE.md
-    @Transactional
     void shouldGetSuppliersByProduct() {
         Supplier supplier = supplierService.createSupplier(
             "sup1", "Supplier A", "contact@suppliera.com", 
@@ -191,4 +196,30 @@ class SupplierServiceTest {
         assertThat(suppliers).hasSize(1);
         assertThat(suppliers.get(0).getId()).isEqualTo("sup1");
     }
+    
+    @Test
+    void shouldThrowExceptionWhenGettingSuppliersOfNonExistentProduct() {
+        assertThatThrownBy(() -> supplierService.getSuppliersByProduct("nonexistent"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Product not found");
+    }
+
+    @Test
+    void shouldServeRepeatedCountryQueryFromCacheUntilSuppliersChange() {
+        supplierService.createSupplier("sup1", "Supplier A", "contact@suppliera.com",
+                                      "+33123456789", "France", "Île-de-France");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        supplierService.getSuppliersByCountry("France");
+
+        statistics.clear();
+        assertThat(supplierService.getSuppliersByCountry("France")).hasSize(1);
+        assertThat(supplierService.getSupplier("sup1")).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        supplierService.createSupplier("sup2", "Supplier B", "contact@supplierb.com",
+                                      "+33987654321", "France", "Bretagne");
+
+        assertThat(supplierService.getSuppliersByCountry("France")).hasSize(2);
+    }
 }
@@ -0,0 +1,156 @@
+package com.omniproduct.service;
+
+import com.omniproduct.SecondLevelCacheExtension;
+import com.omniproduct.infrastructure.adapter.ImpactCo2StubServer;
+import com.omniproduct.model.Product;
+import com.omniproduct.repository.ProductFootprintRepository;
+import com.omniproduct.repository.ProductRepository;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Runs the paths that hold a lock across JDBC or ImpactCO2 calls on virtual threads and records
+// every park of a pinned virtual thread through JFR. SQL is not echoed to the console: the test
+// runner's capture of System.out can pin on its own
+@SpringBootTest(properties = {
+    "spring.threads.virtual.enabled=true",
+    "spring.jpa.show-sql=false",
+    "omniproduct.carbon.provider=impact-co2",
+    "omniproduct.carbon.cache.enabled=false",
+    "omniproduct.carbon.fallback.enabled=false",
+    "omniproduct.stock.hot-products=pin-hot"
+})
+@ExtendWith(SecondLevelCacheExtension.class)
+class VirtualThreadPinningTest {
+
+    private static final ImpactCo2StubServer stub = startStub();
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductFootprintService footprintService;
+
+    @Autowired
+    private ProductStockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFootprintRepository footprintRepository;
+
+    @DynamicPropertySource
+    static void impactCo2(DynamicPropertyRegistry registry) {
+        registry.add("omniproduct.carbon.impact-co2.base-url", stub::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        footprintService.refreshPending();
+        stockService.flush();
+        footprintRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void lockedPersistenceAndHttpWorkDoesNotPinVirtualThreads() {
+        stub.latency(Duration.ofMillis(50));
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            // Concurrent saves append to the change feed under its offset lock
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 20; i++) {
+                    String id = "pin-" + i;
+                    executor.submit(() -> productService.save(product(id)));
+                }
+                executor.submit(() -> productService.save(product("pin-hot")));
+            }
+            // Footprint refreshes wait on ImpactCO2 and hot stock flushes on the database under their locks
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 2; i++) {
+                    executor.submit(footprintService::refreshPending);
+                }
+                for (int i = 0; i < 10; i++) {
+                    executor.submit(() -> {
+                        stockService.reserve("pin-hot", 1);
+                        stockService.flush();
+                    });
+                }
+            }
+            recording.stop();
+        }
+
+        assertThat(stub.requests()).isPositive();
+        assertThat(footprintRepository.count()).isPositive();
+        assertThat(stockService.findStock("pin-hot")).hasValueSatisfying(level -> assertThat(level.stock()).isEqualTo(90));
+        assertThat(pinned)
+            .filteredOn(VirtualThreadPinningTest::pinnedInApplicationCode)
+            .extracting(VirtualThreadPinningTest::describe)
+            .isEmpty();
+    }
+
+    // Pins inside the embedded database engine are outside the application's control
+    private static boolean pinnedInApplicationCode(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        List<String> classes = event.getStackTrace().getFrames().stream()
+            .map(frame -> frame.getMethod().getType().getName())
+            .toList();
+        return classes.stream().anyMatch(name -> name.startsWith("com.omniproduct."))
+            && classes.stream().noneMatch(name -> name.startsWith("org.h2."));
+    }
+
+    private static String describe(RecordedEvent event) {
+        StringBuilder trace = new StringBuilder("pinned for " + event.getDuration().toMillis() + " ms at");
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            trace.append("\n  ").append(frame.getMethod().getType().getName())
+                .append('.').append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+        }
+        return trace.toString();
+    }
+
+    private static ImpactCo2StubServer startStub() {
+        try {
+            return new ImpactCo2StubServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Product product(String id) {
+        return new Product(id, "Product " + id, id, new Product.Price(10.0, 2.0, 0.2), List.of(), Map.of(),
+            Map.of("Europe", new Product.Supplier("Supplier Europe", "SIREN", "TVA")), 5.0, "1x1x1", 1, 100,
+            new Product.Warehouse("Lyon"));
+    }
+}
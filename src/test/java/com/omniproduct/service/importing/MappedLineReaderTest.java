@@ -0,0 +1,63 @@
+package com.omniproduct.service.importing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MappedLineReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadLinesAcrossWindowBoundaries() throws IOException {
+        Path file = write("first line\r\nsecond, a bit longer\n\nthird été\nlast without newline");
+
+        try (MappedLineReader reader = new MappedLineReader(file, 24)) {
+            assertThat(readAll(reader)).containsExactly(
+                "first line", "second, a bit longer", "", "third été", "last without newline");
+            assertThat(reader.position()).isEqualTo(reader.size());
+            assertThat(reader.lineNumber()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void shouldRejectLineLongerThanTheWindow() throws IOException {
+        Path file = write("short\n" + "x".repeat(64) + "\nshort\n");
+
+        try (MappedLineReader reader = new MappedLineReader(file, 16)) {
+            assertThat(reader.nextLine()).isEqualTo("short");
+            assertThatThrownBy(reader::nextLine)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Line 2");
+        }
+    }
+
+    @Test
+    void shouldReadEmptyFile() throws IOException {
+        try (MappedLineReader reader = new MappedLineReader(write(""), 16)) {
+            assertThat(reader.nextLine()).isNull();
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("lines.txt"), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readAll(MappedLineReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.nextLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+}
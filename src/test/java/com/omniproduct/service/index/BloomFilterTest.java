@@ -0,0 +1,38 @@
+package com.omniproduct.service.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void shouldNeverForgetAnInsertedValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("product-" + i));
+
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> filter.mightContain("product-" + i));
+    }
+
+    @Test
+    void shouldKeepFalsePositivesNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("product-" + i));
+
+        long falsePositives = IntStream.range(0, 100_000)
+            .filter(i -> filter.mightContain("unknown-" + i))
+            .count();
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void shouldSizeFromExpectedInsertions() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+        assertThat(filter.bitCount()).isGreaterThanOrEqualTo(9_585);
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,122 @@
+package com.omniproduct.service.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductFacetIndexTest {
+
+    private static final ProductFacetIndex.Range ANY = ProductFacetIndex.Range.ANY;
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex();
+        index.put(row("p1", 10.0, 5, "Lyon", "Europe"));
+        index.put(row("p2", 25.0, 0, "Lyon", "Europe", "Asia"));
+        index.put(row("p3", 40.0, 12, "Paris", "Asia"));
+        index.put(row("p4", 60.0, 3, "Lyon"));
+        index.put(row("p5", null, 1, null, "Europe"));
+    }
+
+    @Test
+    void shouldCombineRangesAvailabilityAndDictionaryFilters() {
+        ProductFacetIndex.Result result = index.filter(query(new ProductFacetIndex.Range(10.0, 50.0), true,
+            Set.of("Lyon", "Paris"), Set.of("Europe")), 10);
+
+        assertThat(result.productIds()).containsExactly("p1");
+        assertThat(result.total()).isEqualTo(1);
+        assertThat(result.minPrice()).isEqualTo(10.0);
+    }
+
+    @Test
+    void shouldCountEachFacetWithoutItsOwnFilter() {
+        ProductFacetIndex.Result result = index.filter(query(ANY, true, Set.of("Lyon"), null), 10);
+
+        assertThat(result.productIds()).containsExactly("p1", "p4");
+        // Other warehouses are counted as if Lyon were not selected
+        assertThat(result.warehouses()).isEqualTo(Map.of("Lyon", 2, "Paris", 1));
+        assertThat(result.regions()).isEqualTo(Map.of("Europe", 1));
+        assertThat(result.availability()).containsEntry(ProductFacetIndex.IN_STOCK, 2)
+            .containsEntry(ProductFacetIndex.OUT_OF_STOCK, 1);
+        assertThat(result.minPrice()).isEqualTo(10.0);
+        assertThat(result.maxPrice()).isEqualTo(60.0);
+    }
+
+    @Test
+    void shouldApplyUpdatesAndDeletes() {
+        index.put(row("p1", 10.0, 0, "Paris", "Africa"));
+        index.remove("p3");
+
+        ProductFacetIndex.Result result = index.filter(query(ANY, null, null, null), 10);
+
+        assertThat(result.total()).isEqualTo(4);
+        assertThat(result.warehouses()).isEqualTo(Map.of("Lyon", 2, "Paris", 1));
+        assertThat(result.regions()).containsEntry("Africa", 1).containsEntry("Asia", 1).containsEntry("Europe", 2);
+        assertThat(result.availability()).containsEntry(ProductFacetIndex.OUT_OF_STOCK, 2);
+
+        // Freed rows are reused
+        index.put(row("p6", 5.0, 1, "Nantes"));
+        assertThat(index.filter(query(ANY, null, Set.of("Nantes"), null), 10).productIds()).containsExactly("p6");
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldExcludeMissingValuesFromBoundedRanges() {
+        ProductFacetIndex.Result result = index.filter(query(new ProductFacetIndex.Range(0.0, null), null, null, null), 10);
+
+        assertThat(result.productIds()).doesNotContain("p5").hasSize(4);
+    }
+
+    @Test
+    void shouldValueInventoryByWarehouse() {
+        index.updateStock("p3", 2);
+
+        assertThat(index.inventoryByWarehouse()).containsExactly(
+            new ProductFacetIndex.WarehouseInventory("Lyon", 3, 8, 230.0),
+            new ProductFacetIndex.WarehouseInventory("Paris", 1, 2, 80.0),
+            new ProductFacetIndex.WarehouseInventory(null, 1, 1, 0.0));
+    }
+
+    @Test
+    void shouldTotalStockBySupplierRegion() {
+        index.remove("p5");
+
+        assertThat(index.stockByRegion()).containsExactly(
+            new ProductFacetIndex.RegionStock("Asia", 2, 12),
+            new ProductFacetIndex.RegionStock("Europe", 2, 5));
+    }
+
+    @Test
+    void shouldBucketWeightsBetweenTheLightestAndTheHeaviest() {
+        ProductFacetIndex weights = new ProductFacetIndex();
+        double[] kilos = {0.5, 1.0, 1.2, 2.4, 4.5};
+        for (int i = 0; i < kilos.length; i++) {
+            weights.put(new ProductFacetIndex.Row("w" + i, 1.0, 1, 1, kilos[i], null, List.of()));
+        }
+        weights.put(new ProductFacetIndex.Row("w-none", 1.0, 1, 1, null, null, List.of()));
+
+        ProductFacetIndex.Histogram histogram = weights.kilosHistogram(4);
+
+        assertThat(histogram.min()).isEqualTo(0.5);
+        assertThat(histogram.max()).isEqualTo(4.5);
+        assertThat(histogram.width()).isEqualTo(1.0);
+        assertThat(histogram.counts()).containsExactly(3, 1, 0, 1);
+        assertThat(histogram.missing()).isEqualTo(1);
+    }
+
+    private static ProductFacetIndex.Query query(ProductFacetIndex.Range price, Boolean inStock,
+                                                 Set<String> warehouses, Set<String> regions) {
+        return new ProductFacetIndex.Query(price, ANY, ANY, inStock, warehouses, regions);
+    }
+
+    private static ProductFacetIndex.Row row(String id, Double price, int stock, String warehouse, String... regions) {
+        return new ProductFacetIndex.Row(id, price, stock, 1, 1.0, warehouse, List.of(regions));
+    }
+}
@@ -0,0 +1,110 @@
+package com.omniproduct.service.index;
+
+import com.omniproduct.exception.SearchPrefixTooBroadException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.put(document("p1", "Blue Lamp", "blue-lamp", List.of("SUMMER10"), List.of("Lumière SA")));
+        index.put(document("p2", "Red Lamp", "red-lamp", List.of(), List.of("Acme")));
+        index.put(document("p3", "Blue Chair", "blue-chair", List.of("VIP5"), List.of("Acme")));
+        index.put(document("p4", "Lampshade", "lampshade", List.of(), List.of()));
+    }
+
+    @Test
+    void shouldRequireEveryTermAndRankByRelevance() {
+        ProductSearchIndex.Result result = index.search("blue lamp", 10);
+
+        assertThat(result.total()).isEqualTo(1);
+        assertThat(result.hits()).extracting(ProductSearchIndex.Hit::productId).containsExactly("p1");
+    }
+
+    @Test
+    void shouldMatchTheLastTermAsPrefixBelowWholeWords() {
+        ProductSearchIndex.Result result = index.search("lamp", 10);
+
+        assertThat(result.hits()).extracting(ProductSearchIndex.Hit::productId)
+            .containsExactlyInAnyOrder("p1", "p2", "p4");
+        assertThat(result.hits().get(2).productId()).isEqualTo("p4");
+    }
+
+    @Test
+    void shouldSearchDiscountsAndSupplierNamesIgnoringAccents() {
+        assertThat(index.search("lumiere", 10).hits()).extracting(ProductSearchIndex.Hit::productId).containsExactly("p1");
+        assertThat(index.search("acme chair", 10).hits()).extracting(ProductSearchIndex.Hit::productId).containsExactly("p3");
+        assertThat(index.search("vip5", 10).hits()).extracting(ProductSearchIndex.Hit::productId).containsExactly("p3");
+    }
+
+    @Test
+    void shouldReflectUpdatesAndDeletes() {
+        index.put(document("p2", "Green Sofa", "green-sofa", List.of(), List.of()));
+        index.remove("p1");
+
+        assertThat(index.search("lamp", 10).hits()).extracting(ProductSearchIndex.Hit::productId).containsExactly("p4");
+        assertThat(index.search("sofa", 10).hits()).extracting(ProductSearchIndex.Hit::productId).containsExactly("p2");
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldLimitHitsButCountAllMatches() {
+        ProductSearchIndex.Result result = index.search("l", 2);
+
+        assertThat(result.total()).isEqualTo(3);
+        assertThat(result.hits()).hasSize(2);
+        assertThat(index.search("   ", 10).total()).isZero();
+    }
+
+    @Test
+    void shouldCheckABroadPrefixAgainstTheProductsOfTheOtherWords() {
+        for (int i = 0; i < 100; i++) {
+            index.put(document("t" + i, "Table t%03d".formatted(i), "table-" + i, List.of(), List.of()));
+        }
+
+        assertThat(index.search("table t", 200).total()).isEqualTo(100);
+        assertThat(index.search("table t099", 200).hits())
+            .extracting(ProductSearchIndex.Hit::productId).containsExactly("t99");
+    }
+
+    @Test
+    void shouldRefuseABroadPrefixOnItsOwn() {
+        for (int i = 0; i < 100; i++) {
+            index.put(document("t" + i, "Table t%03d".formatted(i), "table-" + i, List.of(), List.of()));
+        }
+
+        assertThatThrownBy(() -> index.search("t", 200)).isInstanceOf(SearchPrefixTooBroadException.class);
+        assertThat(index.search("t09", 200).total()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldIntersectCommonWordsAsBitsetsAndRareOnesAsPostings() {
+        index.clear();
+        for (int i = 0; i < 2000; i++) {
+            String name = (i == 10 ? "Desk Desk " : "Desk ") + (i % 2 == 0 ? "oak" : "pine") + (i < 3 ? " drawer" : "");
+            index.put(document("d" + i, name, "desk-" + i, List.of(), List.of()));
+        }
+        index.remove("d4");
+
+        ProductSearchIndex.Result common = index.search("desk oa", 5);
+        assertThat(common.total()).isEqualTo(999);
+        assertThat(common.hits()).hasSize(5);
+        assertThat(common.hits().get(0).productId()).isEqualTo("d10");
+        assertThat(index.search("drawer desk", 5).hits())
+            .extracting(ProductSearchIndex.Hit::productId).containsExactlyInAnyOrder("d0", "d1", "d2");
+    }
+
+    private static ProductSearchIndex.Document document(String id, String name, String slug,
+                                                        List<String> discounts, List<String> suppliers) {
+        return new ProductSearchIndex.Document(id, name, slug, discounts, suppliers);
+    }
+}
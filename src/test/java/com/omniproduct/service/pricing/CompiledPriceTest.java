@@ -0,0 +1,71 @@
+package com.omniproduct.service.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledPriceTest {
+
+    @Test
+    void shouldParseTheSupportedDiscountForms() {
+        assertThat(DiscountRule.parse("10%")).contains(new DiscountRule.PercentOff(10));
+        assertThat(DiscountRule.parse("-4.99")).contains(new DiscountRule.AmountOff(4.99));
+        assertThat(DiscountRule.parse("3+:15%")).contains(new DiscountRule.VolumePercentOff(3, 15));
+        assertThat(DiscountRule.parse("summer2024:15%")).contains(new DiscountRule.PromotionCode("SUMMER2024", 15));
+        assertThat(DiscountRule.parse("SUMMER10")).contains(new DiscountRule.PromotionCode("SUMMER10", 10));
+        assertThat(DiscountRule.parse("VIP5")).contains(new DiscountRule.PromotionCode("VIP5", 5));
+    }
+
+    @Test
+    void shouldIgnoreStringsThatAreNotDiscounts() {
+        // A code ending with a year states its percentage explicitly, as in "SUMMER2024:15%"
+        assertThat(Stream.of("Image 1", "free shipping", "150%", "0%", "SUMMER2024", "PROMO:0%", "", null)
+                .map(DiscountRule::parse))
+            .allMatch(Optional::isEmpty);
+    }
+
+    @Test
+    void shouldApplyPercentagesThenAmounts() {
+        CompiledPrice price = compile(100.0, null, 0.2, "10%", "5%", "-5");
+
+        // 100 * 0.90 * 0.95 - 5
+        assertThat(price.unitNetCents(1)).isEqualTo(8050);
+        assertThat(price.taxCents(8050)).isEqualTo(1610);
+    }
+
+    @Test
+    void shouldApplyPromotionCodesOnlyWhenSupplied() {
+        CompiledPrice price = compile(100.0, null, 0.2, "SUMMER10", "VIP5", "-5");
+
+        assertThat(price.unitNetCents(1)).isEqualTo(9500);
+        // 100 * 0.90 - 5, then 100 * 0.90 * 0.95 - 5
+        assertThat(price.unitNetCents(1, Set.of("SUMMER10"))).isEqualTo(8500);
+        assertThat(price.unitNetCents(1, Set.of("SUMMER10", "VIP5"))).isEqualTo(8050);
+    }
+
+    @Test
+    void shouldApplyTheBestVolumeDiscountReached() {
+        CompiledPrice price = compile(20.0, null, null, "10+:20%", "3+:10%", "5+:5%");
+
+        assertThat(price.unitNetCents(1)).isEqualTo(2000);
+        assertThat(price.unitNetCents(3)).isEqualTo(1800);
+        assertThat(price.unitNetCents(5)).isEqualTo(1800);
+        assertThat(price.unitNetCents(12)).isEqualTo(1600);
+    }
+
+    @Test
+    void shouldTakeTaxAsAShareOfTheBaseWithoutRateAndNeverGoBelowZero() {
+        assertThat(compile(50.0, 10.0, null, "50%").taxCents(2500)).isEqualTo(500);
+        assertThat(compile(3.0, null, null, "-5").unitNetCents(1)).isZero();
+    }
+
+    private static CompiledPrice compile(double base, Double tax, Double taxRate, String... discounts) {
+        List<DiscountRule> rules = Stream.of(discounts).map(DiscountRule::parse).flatMap(Optional::stream).toList();
+        return CompiledPrice.compile(0, base, tax, taxRate, rules);
+    }
+}
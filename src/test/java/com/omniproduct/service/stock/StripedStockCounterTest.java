@@ -0,0 +1,56 @@
+package com.omniproduct.service.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedStockCounterTest {
+
+    @Test
+    void shouldGatherAcrossStripesAndGiveBackOnShortfall() {
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+
+        assertThat(counter.tryTake(7)).isTrue();
+        assertThat(counter.sum()).isEqualTo(3);
+        assertThat(counter.tryTake(4)).isFalse();
+        assertThat(counter.sum()).isEqualTo(3);
+
+        counter.add(2);
+        assertThat(counter.tryTake(5)).isTrue();
+        assertThat(counter.sum()).isZero();
+    }
+
+    @Test
+    void shouldNeverOversellUnderContention() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(1_000, 8);
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            int quantity = t % 3 + 1;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    if (counter.tryTake(quantity)) {
+                        sold.addAndGet(quantity);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(sold.get() + counter.sum()).isEqualTo(1_000);
+        assertThat(counter.sum()).isBetween(0, 2);
+    }
+}